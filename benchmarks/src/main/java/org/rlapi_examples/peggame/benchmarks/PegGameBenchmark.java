@@ -0,0 +1,187 @@
+package org.rlapi_examples.peggame.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.rlapi_examples.peggame.NumberOfLevels;
+import org.rlapi_examples.peggame.PegGame;
+import org.rlapi_examples.peggame.PegGameBatch;
+
+/**
+ * Benchmarks of the hot paths of {@link PegGame}. The single operations run 
+ * over a fixed sample of mid-game boards, which are collected from random 
+ * playouts, so every board size is measured on the same kind of positions.
+ * 
+ * @author Alexandre Lima
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PegGameBenchmark {
+    
+    private static final int NUMBER_OF_BOARDS = 1024;
+    
+    @Param({"5", "6"})
+    public int numberOfLevels;
+    
+    private PegGame game;
+    private Random rand;
+    //sample of boards which have at least one valid move
+    private String[] boards;
+    private long[] stateIds;
+    //a valid move of each board of the sample
+    private String[] moves;
+    private int[] jumps;
+    private int[] moveBuffer;
+    private int index;
+    private PegGameBatch batch;
+    private int[] batchActions;
+    private double[] batchRewards;
+    private boolean[] batchTerminal;
+    private long[] batchNextStates;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        rand = new Random(42);
+        game = new PegGame(NumberOfLevels.of(numberOfLevels), new Random(42));
+        boards = new String[NUMBER_OF_BOARDS];
+        stateIds = new long[NUMBER_OF_BOARDS];
+        moves = new String[NUMBER_OF_BOARDS];
+        jumps = new int[NUMBER_OF_BOARDS];
+        moveBuffer = new int[game.getJumpTable().size()];
+        int n = 0;
+        while (n < NUMBER_OF_BOARDS) {
+            game.reset();
+            while (!game.isEndOfGame() && n < NUMBER_OF_BOARDS) {
+                List<String> valid = game.getValidMoves2();
+                int count = game.getValidMoves(moveBuffer);
+                int choice = rand.nextInt(count);
+                boards[n] = game.getBinaryRepresentation();
+                stateIds[n] = game.getStateId();
+                moves[n] = valid.get(choice);
+                jumps[n] = moveBuffer[choice];
+                n++;
+                game.movePiece(jumps[n - 1]);
+            }
+        }
+        batch = new PegGameBatch(NumberOfLevels.of(numberOfLevels), NUMBER_OF_BOARDS, new Random(42));
+        batchActions = new int[NUMBER_OF_BOARDS];
+        batchRewards = new double[NUMBER_OF_BOARDS];
+        batchTerminal = new boolean[NUMBER_OF_BOARDS];
+        batchNextStates = new long[NUMBER_OF_BOARDS];
+    }
+    
+    //Moves to the next board of the sample
+    private int nextBoard() {
+        index = (index + 1) & (NUMBER_OF_BOARDS - 1);
+        game.setBoardState(stateIds[index]);
+        return index;
+    }
+    
+    @Benchmark
+    public Object getValidMoves() {
+        nextBoard();
+        return game.getValidMoves();
+    }
+    
+    @Benchmark
+    public Object getValidMoves2() {
+        nextBoard();
+        return game.getValidMoves2();
+    }
+    
+    @Benchmark
+    public int getValidMovesPrimitive() {
+        nextBoard();
+        return game.getValidMoves(moveBuffer);
+    }
+    
+    @Benchmark
+    public boolean movePieceString() {
+        return game.movePiece(moves[nextBoard()]);
+    }
+    
+    @Benchmark
+    public boolean movePieceJump() {
+        return game.movePiece(jumps[nextBoard()]);
+    }
+    
+    @Benchmark
+    public String getBinaryRepresentation() {
+        nextBoard();
+        return game.getBinaryRepresentation();
+    }
+    
+    @Benchmark
+    public void setBoardStateString() {
+        index = (index + 1) & (NUMBER_OF_BOARDS - 1);
+        game.setBoardState(boards[index]);
+    }
+    
+    @Benchmark
+    public Double performActionString() {
+        return game.performAction(moves[nextBoard()]);
+    }
+    
+    @Benchmark
+    public double performActionJump() {
+        return game.performAction(jumps[nextBoard()]);
+    }
+    
+    /**
+     * Full episode with random moves through the rlAPI Environment methods, 
+     * the way the rlAPI's Q-learning drives the game.
+     */
+    @Benchmark
+    public void randomPlayoutEnvironment(Blackhole bh) {
+        game.reset();
+        while (!game.isInTerminalState()) {
+            List<String> actions = game.getAvailableActions();
+            bh.consume(game.getCurrentState());
+            bh.consume(game.performAction(actions.get(rand.nextInt(actions.size()))));
+        }
+    }
+    
+    /**
+     * Full episode with random moves through the primitive API.
+     */
+    @Benchmark
+    public void randomPlayoutPrimitive(Blackhole bh) {
+        game.reset();
+        int count = game.getValidMoves(moveBuffer);
+        while (count > 0) {
+            bh.consume(game.getStateId());
+            bh.consume(game.performAction(moveBuffer[rand.nextInt(count)]));
+            count = game.getValidMoves(moveBuffer);
+        }
+    }
+    
+    /**
+     * Random steps of a batch of boards, with auto-reset. The score is per 
+     * step of one board.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_BOARDS)
+    public long[] randomStepBatch() {
+        batch.chooseRandomActions(batchActions);
+        batch.step(batchActions, batchRewards, batchTerminal, batchNextStates);
+        return batchNextStates;
+    }
+}
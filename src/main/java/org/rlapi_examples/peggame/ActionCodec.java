@@ -0,0 +1,97 @@
+package org.rlapi_examples.peggame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts jumps (see {@link JumpTable}) to and from the move strings of the 
+ * rlAPI's {@link org.rlapi.Environment} contract, like <code>7 2</code>: the 
+ * number of the source place and the number of the target place, separated 
+ * by an empty space. The string of each jump is built and interned once per 
+ * board size, so encoding allocates nothing and decoding is a single hash 
+ * lookup, without parsing. The codecs are shared.
+ * 
+ * @author Alexandre Lima
+ */
+public final class ActionCodec {
+    
+    private static final ActionCodec[] CODECS = new ActionCodec[JumpTable.MAX_NUMBER_OF_LEVELS + 1];
+    
+    private final JumpTable jumps;
+    //move string by jump index
+    private final String[] actions;
+    private final Map<String, Integer> jumpsByAction;
+    
+    private ActionCodec(JumpTable jumps) {
+        this.jumps = jumps;
+        this.actions = new String[jumps.size()];
+        this.jumpsByAction = new HashMap<>(jumps.size() * 2);
+        for (int jump = 0; jump < jumps.size(); jump++) {
+            //Notice that for the first place its number is 1
+            actions[jump] = ((jumps.getSource(jump) + 1) + " " + (jumps.getTarget(jump) + 1)).intern();
+            jumpsByAction.put(actions[jump], jump);
+        }
+    }
+    
+    /**
+     * Returns the codec of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     */
+    public static ActionCodec forLevels(NumberOfLevels numberOfLevels) {
+        return forLevels(numberOfLevels.number);
+    }
+    
+    /**
+     * Returns the codec of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     * @throws IllegalArgumentException if the number of levels is lower than 
+     * 1 or greater than {@link JumpTable#MAX_NUMBER_OF_LEVELS}.
+     */
+    public static ActionCodec forLevels(int numberOfLevels) {
+        JumpTable jumps = JumpTable.forLevels(numberOfLevels);
+        synchronized (CODECS) {
+            if (CODECS[numberOfLevels] == null) {
+                CODECS[numberOfLevels] = new ActionCodec(jumps);
+            }
+            return CODECS[numberOfLevels];
+        }
+    }
+    
+    /**
+     * Returns the move string of a jump.
+     * @param jump Index of the jump on the jump table.
+     * @return 
+     */
+    public String encode(int jump) {
+        return actions[jump];
+    }
+    
+    /**
+     * Returns the jump of a move string. The strings returned by 
+     * {@link #encode(int)} are found by a hash lookup; any other string, e.g. 
+     * <code>07 2</code>, is parsed.
+     * @param action A string which the first token is the number of the source 
+     * place and the second token is the number of the target place.
+     * @return The index of the jump or -1 if there is no such jump.
+     * @throws NumberFormatException if the string is not a move.
+     */
+    public int decode(String action) {
+        Integer jump = jumpsByAction.get(action);
+        if (jump != null) {
+            return jump;
+        }
+        int spaceIndex = action.indexOf(" ");
+        if (spaceIndex == -1) {
+            throw new NumberFormatException("Not a move: " + action);
+        }
+        int numberOfSourcePlace = Integer.parseInt(action.substring(0, spaceIndex));
+        int numberOfTargetPlace = Integer.parseInt(action.substring(spaceIndex + 1));
+        return jumps.getJump(numberOfSourcePlace - 1, numberOfTargetPlace - 1);
+    }
+    
+    public JumpTable getJumpTable() {
+        return jumps;
+    }
+}
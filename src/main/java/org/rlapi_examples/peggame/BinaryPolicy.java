@@ -0,0 +1,263 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Policy stored in a compact binary file, which is loaded by mapping the file 
+ * into memory. The file has a header (magic number, format version, number 
+ * of levels, number of states and flags), followed by the state ids (see 
+ * {@link PegGame#getStateId()}) in ascending order and by the jump indexes 
+ * (see {@link JumpTable}) of the states in the same order. Looking up a move 
+ * is a binary search over the mapped states, so loading a policy reads 
+ * nothing but the header and takes almost no heap.
+ * <p>
+ * A policy of canonical states stores only the canonical representative of 
+ * each group of symmetric boards (see {@link BoardSymmetry}); its lookups 
+ * canonicalize the board and map the stored move back to it. Version 1 files 
+ * have no flags.
+ * 
+ * @author Alexandre Lima
+ */
+public class BinaryPolicy implements PegPolicy {
+    
+    private static final int MAGIC = 0x50454750; //"PEGP"
+    private static final int VERSION = 2;
+    //the header of version 1 has no flags
+    private static final int HEADER_SIZE_V1 = 4 * Integer.BYTES;
+    //flags and padding, so the states are 8-byte aligned
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+    private static final int CANONICAL_STATES = 1;
+    
+    private final NumberOfLevels numberOfLevels;
+    private final LongBuffer states;
+    private final ShortBuffer jumps;
+    //null when the policy has all the states
+    private final BoardSymmetry symmetry;
+    
+    private BinaryPolicy(NumberOfLevels numberOfLevels, LongBuffer states, ShortBuffer jumps, 
+            BoardSymmetry symmetry) {
+        this.numberOfLevels = numberOfLevels;
+        this.states = states;
+        this.jumps = jumps;
+        this.symmetry = symmetry;
+    }
+    
+    /**
+     * Loads a policy file by mapping it into memory.
+     * @param file The policy file.
+     * @return 
+     * @throws IOException if the file cannot be read or is not a policy file.
+     */
+    public static BinaryPolicy load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE_V1 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a policy file: " + file);
+            }
+            int version = buffer.getInt(4);
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported policy file version: " + version);
+            }
+            int headerSize = version == 1 ? HEADER_SIZE_V1 : HEADER_SIZE;
+            if (buffer.limit() < headerSize) {
+                throw new IOException("Corrupted policy file: " + file);
+            }
+            int flags = version == 1 ? 0 : buffer.getInt(16);
+            NumberOfLevels numberOfLevels;
+            try {
+                numberOfLevels = NumberOfLevels.of(buffer.getInt(8));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Corrupted policy file: " + file, ex);
+            }
+            int count = buffer.getInt(12);
+            if (count < 0 || buffer.limit() != headerSize + (long) count * (Long.BYTES + Short.BYTES)) {
+                throw new IOException("Corrupted policy file: " + file);
+            }
+            buffer.position(headerSize);
+            LongBuffer states = buffer.slice().asLongBuffer();
+            states.limit(count);
+            buffer.position(headerSize + count * Long.BYTES);
+            ShortBuffer jumps = buffer.slice().asShortBuffer();
+            jumps.limit(count);
+            return new BinaryPolicy(numberOfLevels, states, jumps, 
+                    (flags & CANONICAL_STATES) != 0 ? BoardSymmetry.forLevels(numberOfLevels) : null);
+        }
+    }
+    
+    /**
+     * Writes a policy file.
+     * @param file              The policy file.
+     * @param policy            The keys are the binary representations of the 
+     * states and the values are moves like "7 2" (see 
+     * {@link Util#writePolicy(java.lang.String, java.util.Map, java.lang.String)}).
+     * @param numberOfLevels    The number of levels of the board.
+     * @throws IOException 
+     */
+    public static void write(Path file, Map<String, String> policy, NumberOfLevels numberOfLevels) 
+            throws IOException {
+        ActionCodec codec = ActionCodec.forLevels(numberOfLevels);
+        long[] states = new long[policy.size()];
+        LongIntHashMap moves = new LongIntHashMap(policy.size());
+        int i = 0;
+        for (Map.Entry<String, String> e : policy.entrySet()) {
+            states[i] = PegGame.parseBinaryRepresentation(e.getKey());
+            moves.put(states[i], codec.decode(e.getValue()));
+            i++;
+        }
+        Arrays.sort(states);
+        short[] jumps = new short[states.length];
+        for (i = 0; i < states.length; i++) {
+            jumps[i] = (short) moves.get(states[i], -1);
+        }
+        write(file, states, jumps, numberOfLevels);
+    }
+    
+    /**
+     * Writes the greedy policy of an agent (see {@link PegQLearning#getPolicy()}) 
+     * without building the string policy. Only the states of the agent's 
+     * table are written, so the policy of an agent with canonical states is 
+     * a policy of canonical states. The states are gathered into an array and 
+     * sorted; their moves are computed again from the table while they are 
+     * written, so no other copy of the policy is kept.
+     * @param file  The policy file.
+     * @param agent The agent.
+     * @throws IOException 
+     */
+    public static void write(Path file, PegQLearning agent) throws IOException {
+        JumpTable table = agent.getGame().getJumpTable();
+        int[] moves = new int[table.size()];
+        long[][] states = {new long[Math.max(16, agent.getTable().getNumberOfStates())]};
+        int[] count = {0};
+        agent.getTable().forEachState(state -> {
+            if (table.getValidJumps(state, moves) > 0) {
+                if (count[0] == states[0].length) {
+                    states[0] = Arrays.copyOf(states[0], count[0] * 2);
+                }
+                states[0][count[0]++] = state;
+            }
+        });
+        Arrays.sort(states[0], 0, count[0]);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            putHeader(buffer, NumberOfLevels.of(table.getNumberOfLevels()), count[0], 
+                    agent.isCanonicalStates() ? CANONICAL_STATES : 0);
+            for (int i = 0; i < count[0]; i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(states[0][i]);
+            }
+            for (int i = 0; i < count[0]; i++) {
+                if (buffer.remaining() < Short.BYTES) {
+                    flush(channel, buffer);
+                }
+                long state = states[0][i];
+                buffer.putShort((short) agent.getGreedyMove(state, moves, table.getValidJumps(state, moves)));
+            }
+            flush(channel, buffer);
+        }
+    }
+    
+    /**
+     * Writes a policy file.
+     * @param file              The policy file.
+     * @param states            The state ids in ascending order.
+     * @param jumps             The jump of each state.
+     * @param numberOfLevels    The number of levels of the board.
+     * @throws IOException 
+     */
+    public static void write(Path file, long[] states, short[] jumps, NumberOfLevels numberOfLevels) 
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            putHeader(buffer, numberOfLevels, states.length, 0);
+            for (long state : states) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(state);
+            }
+            for (short jump : jumps) {
+                if (buffer.remaining() < Short.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putShort(jump);
+            }
+            flush(channel, buffer);
+        }
+    }
+    
+    private static void putHeader(ByteBuffer buffer, NumberOfLevels numberOfLevels, int count, 
+            int flags) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfLevels.number).putInt(count);
+        buffer.putInt(flags).putInt(0);
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public int getMove(long state) {
+        if (symmetry == null) {
+            return find(state);
+        }
+        long key = symmetry.canonicalize(state);
+        int jump = find(key);
+        if (jump == -1) {
+            return -1;
+        }
+        //the same image of PegQLearning.getGreedyPolicy(), so ties are broken alike
+        int s = 0;
+        while (symmetry.apply(s, key) != state) {
+            s++;
+        }
+        return symmetry.applyToJump(s, jump);
+    }
+    
+    //Returns the stored jump of a state or -1
+    private int find(long state) {
+        int low = 0;
+        int high = states.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long s = states.get(middle);
+            if (s < state) {
+                low = middle + 1;
+            } else if (s > state) {
+                high = middle - 1;
+            } else {
+                return jumps.get(middle);
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the number of states stored in the file. A policy of canonical 
+     * states has also the moves of their symmetric images.
+     * @return 
+     */
+    public int size() {
+        return states.limit();
+    }
+    
+    public NumberOfLevels getNumberOfLevels() {
+        return numberOfLevels;
+    }
+}
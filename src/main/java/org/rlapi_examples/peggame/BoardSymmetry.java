@@ -0,0 +1,151 @@
+package org.rlapi_examples.peggame;
+
+/**
+ * Symmetries of a triangle board: the identity, two rotations and three 
+ * reflections. Each symmetry permutes the places and, therefore, the jumps. 
+ * Boards which are images of each other under a symmetry are equivalent, so 
+ * they can share the same canonical representative: the image with the 
+ * lowest state id (see {@link PegGame#getStateId()}). There is only one 
+ * instance per board size, which is shared by all the users.
+ * <p>
+ * A place is mapped by its barycentric coordinates (position, level - 
+ * position, levels - 1 - level), which are permuted by each symmetry.
+ * 
+ * @author Alexandre Lima
+ */
+public final class BoardSymmetry {
+    
+    public static final int NUMBER_OF_SYMMETRIES = 6;
+    
+    /**
+     * The symmetry which maps every place to itself.
+     */
+    public static final int IDENTITY = 0;
+    
+    //Permutations of the barycentric coordinates. The first one is the identity
+    private static final int[][] COORDINATE_PERMUTATIONS = {
+        {0, 1, 2}, {1, 2, 0}, {2, 0, 1}, {1, 0, 2}, {0, 2, 1}, {2, 1, 0}
+    };
+    
+    private static final BoardSymmetry[] SYMMETRIES = new BoardSymmetry[JumpTable.MAX_NUMBER_OF_LEVELS + 1];
+    
+    private final JumpTable jumps;
+    //image of each place by each symmetry: [symmetry][place]
+    private final int[][] places;
+    //image of each jump by each symmetry: [symmetry][jump]
+    private final int[][] jumpImages;
+    
+    private BoardSymmetry(int numberOfLevels) {
+        this.jumps = JumpTable.forLevels(numberOfLevels);
+        this.places = new int[NUMBER_OF_SYMMETRIES][jumps.getNumberOfPlaces()];
+        this.jumpImages = new int[NUMBER_OF_SYMMETRIES][jumps.size()];
+        int top = numberOfLevels - 1;
+        for (int s = 0; s < NUMBER_OF_SYMMETRIES; s++) {
+            int[] permutation = COORDINATE_PERMUTATIONS[s];
+            for (int level = 0; level < numberOfLevels; level++) {
+                for (int position = 0; position <= level; position++) {
+                    int[] coordinates = {position, level - position, top - level};
+                    int imagePosition = coordinates[permutation[0]];
+                    int imageLevel = top - coordinates[permutation[2]];
+                    places[s][JumpTable.getPlaceIndex(level, position)] = 
+                            JumpTable.getPlaceIndex(imageLevel, imagePosition);
+                }
+            }
+            for (int jump = 0; jump < jumps.size(); jump++) {
+                jumpImages[s][jump] = jumps.getJump(places[s][jumps.getSource(jump)], 
+                        places[s][jumps.getTarget(jump)]);
+            }
+        }
+    }
+    
+    /**
+     * Returns the symmetries of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     */
+    public static BoardSymmetry forLevels(NumberOfLevels numberOfLevels) {
+        return forLevels(numberOfLevels.number);
+    }
+    
+    /**
+     * Returns the symmetries of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     */
+    public static BoardSymmetry forLevels(int numberOfLevels) {
+        JumpTable.forLevels(numberOfLevels); //validates the number of levels
+        synchronized (SYMMETRIES) {
+            if (SYMMETRIES[numberOfLevels] == null) {
+                SYMMETRIES[numberOfLevels] = new BoardSymmetry(numberOfLevels);
+            }
+            return SYMMETRIES[numberOfLevels];
+        }
+    }
+    
+    /**
+     * Returns the image of a place.
+     * @param symmetry  Index of the symmetry.
+     * @param place     Index of the place.
+     * @return 
+     */
+    public int applyToPlace(int symmetry, int place) {
+        return places[symmetry][place];
+    }
+    
+    /**
+     * Returns the image of a jump.
+     * @param symmetry  Index of the symmetry.
+     * @param jump      Index of the jump (see {@link JumpTable}).
+     * @return 
+     */
+    public int applyToJump(int symmetry, int jump) {
+        return jumpImages[symmetry][jump];
+    }
+    
+    /**
+     * Returns the image of a board.
+     * @param symmetry  Index of the symmetry.
+     * @param board     A bitboard. The bit i is set when the place i is occupied.
+     * @return 
+     */
+    public long apply(int symmetry, long board) {
+        if (symmetry == IDENTITY) {
+            return board;
+        }
+        int[] permutation = places[symmetry];
+        long image = 0;
+        while (board != 0) {
+            image |= 1L << permutation[Long.numberOfTrailingZeros(board)];
+            board &= board - 1;
+        }
+        return image;
+    }
+    
+    /**
+     * Returns the symmetry which maps a board to its canonical representative.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @return 
+     */
+    public int getCanonicalSymmetry(long board) {
+        int best = IDENTITY;
+        long bestImage = board;
+        for (int s = 1; s < NUMBER_OF_SYMMETRIES; s++) {
+            long image = apply(s, board);
+            //state ids are compared as unsigned numbers
+            if (Long.compareUnsigned(image, bestImage) < 0) {
+                bestImage = image;
+                best = s;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Returns the canonical representative of a board.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @return 
+     */
+    public long canonicalize(long board) {
+        return apply(getCanonicalSymmetry(board), board);
+    }
+}
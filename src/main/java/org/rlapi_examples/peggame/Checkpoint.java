@@ -0,0 +1,271 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * State of a training at some episode: the whole action-value table, the 
+ * number of episodes played by each worker and the random number generators 
+ * of the training. Checkpoints are written by a {@link Checkpointer}.
+ * <p>
+ * File layout: magic number, format version, number of levels, number of 
+ * jumps, the episode counters, the states of the random number generators 
+ * (see {@link SavableRandom}), the number of states and then, for each state, 
+ * its id followed by the values of its jumps.
+ * <p>
+ * The values of a {@link StripedQTable} are not copied when the checkpoint 
+ * is taken: they are streamed into the file stripe by stripe, each stripe 
+ * copied into a small buffer under its lock, while the training goes on. So 
+ * the checkpoint holds the values of each state at some moment during the 
+ * writing. A {@link ConcurrentDenseQTable} is streamed the same way, chunk by 
+ * chunk of state ids. A {@link HashQTable} or a {@link DenseQTable} is not thread-safe: 
+ * the checkpoint takes a copy-on-write snapshot of it, which is copied chunk 
+ * by chunk along the next writes of the training (see {@link TableSnapshot}), 
+ * and the writing waits for the snapshot to be complete. So the checkpoint 
+ * holds the values of the moment it was taken, and the training pauses for a 
+ * chunk at a time. The other tables are copied when the checkpoint is taken.
+ * 
+ * @author Alexandre Lima
+ */
+public class Checkpoint {
+    
+    static final int MAGIC = 0x50454743; //"PEGC"
+    static final int VERSION = 2;
+    
+    private final NumberOfLevels numberOfLevels;
+    private final long[] episodes;
+    //states of the random number generators
+    private final long[] randoms;
+    //the thread-safe table streamed by write(Path); null otherwise
+    private final QTable table;
+    //snapshot of a table which is not thread-safe; null otherwise
+    private final TableSnapshot snapshot;
+    private int numberOfStates;
+    
+    private Checkpoint(NumberOfLevels numberOfLevels, long[] episodes, long[] randoms, 
+            QTable table, TableSnapshot snapshot, int numberOfStates) {
+        this.numberOfLevels = numberOfLevels;
+        this.episodes = episodes;
+        this.randoms = randoms;
+        this.table = table;
+        this.snapshot = snapshot;
+        this.numberOfStates = numberOfStates;
+    }
+    
+    /**
+     * Takes a checkpoint of a training. The episode counters and the states 
+     * of the random number generators are copied. The values of a 
+     * {@link StripedQTable} or a {@link ConcurrentDenseQTable} are read 
+     * later, by {@link #write(java.nio.file.Path)}; the values of a {@link HashQTable} 
+     * or a {@link DenseQTable} are copied along the next writes of the table, 
+     * or by {@link #completeSnapshot()}; the values of the other tables are 
+     * copied now.
+     * @param numberOfLevels    The number of levels of the board.
+     * @param table             The action-value table.
+     * @param episodes          The number of episodes played by each worker.
+     * @param randoms           The random number generators of the training.
+     * @return 
+     */
+    static Checkpoint take(NumberOfLevels numberOfLevels, QTable table, long[] episodes, 
+            SavableRandom... randoms) {
+        long[] copies = new long[randoms.length];
+        for (int i = 0; i < randoms.length; i++) {
+            copies[i] = randoms[i].getState();
+        }
+        if (table instanceof StripedQTable || table instanceof ConcurrentDenseQTable) {
+            return new Checkpoint(numberOfLevels, episodes.clone(), copies, table, null, 0);
+        }
+        TableSnapshot snapshot;
+        if (table instanceof HashQTable) {
+            snapshot = ((HashQTable) table).startSnapshot();
+        } else if (table instanceof DenseQTable) {
+            snapshot = ((DenseQTable) table).startSnapshot();
+        } else {
+            snapshot = TableSnapshot.copyOf(table);
+        }
+        return new Checkpoint(numberOfLevels, episodes.clone(), copies, null, snapshot, 0);
+    }
+    
+    /**
+     * Copies the values of the table which are not copied yet. It must be 
+     * called by the thread which uses the table, e. g. when the training 
+     * ends, so the checkpoint can be written.
+     */
+    void completeSnapshot() {
+        if (snapshot != null) {
+            snapshot.complete();
+        }
+    }
+    
+    /**
+     * Writes the checkpoint into a file.
+     * @param file
+     * @throws IOException 
+     */
+    void write(Path file) throws IOException {
+        int jumps = JumpTable.forLevels(numberOfLevels).size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfLevels.number).putInt(jumps);
+            buffer.putInt(episodes.length);
+            for (long e : episodes) {
+                buffer.putLong(e);
+            }
+            buffer.putInt(randoms.length);
+            for (long r : randoms) {
+                buffer.putLong(r);
+            }
+            //the number of states of a streamed table is known only at the end
+            long numberOfStatesPosition = channel.position() + buffer.position();
+            buffer.putInt(0);
+            numberOfStates = 0;
+            if (snapshot != null) {
+                try {
+                    snapshot.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while copying the table", ex);
+                }
+                for (TableSnapshot.Rows chunk : snapshot.getChunks()) {
+                    write(chunk, channel, buffer);
+                    numberOfStates += chunk.size;
+                }
+            } else if (table instanceof StripedQTable) {
+                StripedQTable striped = (StripedQTable) table;
+                TableSnapshot.Rows stripe = new TableSnapshot.Rows(jumps, 16);
+                for (int i = 0; i < striped.getNumberOfStripes(); i++) {
+                    stripe.size = 0;
+                    striped.forEachState(i, state -> stripe.add(table, state));
+                    write(stripe, channel, buffer);
+                    numberOfStates += stripe.size;
+                }
+            } else {
+                ConcurrentDenseQTable dense = (ConcurrentDenseQTable) table;
+                TableSnapshot.Rows chunk = new TableSnapshot.Rows(jumps, 16);
+                for (int i = 0; i < dense.getNumberOfChunks(); i++) {
+                    chunk.size = 0;
+                    dense.forEachState(i, state -> chunk.add(table, state));
+                    write(chunk, channel, buffer);
+                    numberOfStates += chunk.size;
+                }
+            }
+            flush(channel, buffer);
+            ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(0, numberOfStates);
+            while (count.hasRemaining()) {
+                channel.write(count, numberOfStatesPosition + count.position());
+            }
+            channel.force(true);
+        }
+    }
+    
+    private static void write(TableSnapshot.Rows rows, FileChannel channel, ByteBuffer buffer) throws IOException {
+        int recordSize = Long.BYTES + rows.jumps * Double.BYTES;
+        for (int i = 0; i < rows.size; i++) {
+            if (buffer.remaining() < recordSize) {
+                flush(channel, buffer);
+            }
+            buffer.putLong(rows.states[i]);
+            for (int j = 0; j < rows.jumps; j++) {
+                buffer.putDouble(rows.values[i * rows.jumps + j]);
+            }
+        }
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Loads a checkpoint file by mapping it into memory. The values are put 
+     * into a table and the rest of the training state is returned.
+     * @param file  The checkpoint file.
+     * @param table The table which receives the values. Its number of jumps 
+     * must be the same of the checkpoint.
+     * @return 
+     * @throws IOException if the file cannot be read or is not a checkpoint 
+     * of the table's board.
+     */
+    public static Checkpoint load(Path file, QTable table) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < 4 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported checkpoint file version: " + file);
+            }
+            NumberOfLevels numberOfLevels;
+            try {
+                numberOfLevels = NumberOfLevels.of(buffer.getInt());
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Corrupted checkpoint file: " + file, ex);
+            }
+            int jumps = buffer.getInt();
+            if (jumps != table.getNumberOfJumps()) {
+                throw new IOException("The checkpoint does not match the table: " + jumps + " jumps");
+            }
+            long[] episodes = new long[buffer.getInt()];
+            for (int i = 0; i < episodes.length; i++) {
+                episodes[i] = buffer.getLong();
+            }
+            long[] randoms = new long[buffer.getInt()];
+            for (int i = 0; i < randoms.length; i++) {
+                randoms[i] = buffer.getLong();
+                //a valid state has 48 bits
+                SavableRandom.withState(randoms[i]);
+            }
+            int numberOfStates = buffer.getInt();
+            double[] row = new double[jumps];
+            for (int i = 0; i < numberOfStates; i++) {
+                long state = buffer.getLong();
+                for (int j = 0; j < jumps; j++) {
+                    row[j] = buffer.getDouble();
+                }
+                table.setValues(state, row, 0);
+            }
+            return new Checkpoint(numberOfLevels, episodes, randoms, null, null, numberOfStates);
+        } catch (RuntimeException ex) {
+            //BufferUnderflowException, NegativeArraySizeException, 
+            //IllegalArgumentException...
+            throw new IOException("Corrupted checkpoint file: " + file, ex);
+        }
+    }
+    
+    public NumberOfLevels getNumberOfLevels() {
+        return numberOfLevels;
+    }
+    
+    /**
+     * Returns the number of episodes played by each worker.
+     * @return 
+     */
+    public long[] getEpisodes() {
+        return episodes.clone();
+    }
+    
+    /**
+     * Returns the random number generators of the training, in the same 
+     * order they were saved. Each call creates new generators.
+     * @return 
+     */
+    public SavableRandom[] getRandoms() {
+        SavableRandom[] generators = new SavableRandom[randoms.length];
+        for (int i = 0; i < randoms.length; i++) {
+            generators[i] = SavableRandom.withState(randoms[i]);
+        }
+        return generators;
+    }
+    
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+}
@@ -0,0 +1,119 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes checkpoints of a training (see {@link Checkpoint}) from a background 
+ * thread, while the training goes on. The values of a thread-safe table 
+ * are streamed by that thread, so saving does not pause the training; the 
+ * other tables are copied on the caller's thread, chunk by chunk along the 
+ * next writes of the training (see {@link Checkpoint}), so the training must 
+ * close the checkpointer from the same thread. Each checkpoint is written 
+ * to a temporary file which then replaces the checkpoint file, so a crash 
+ * during the writing keeps the previous checkpoint.
+ * <p>
+ * At most one checkpoint waits while another one is written: a newer 
+ * checkpoint replaces the waiting one, so a slow disk skips checkpoints 
+ * instead of piling them up.
+ * 
+ * @author Alexandre Lima
+ */
+public class Checkpointer implements AutoCloseable {
+    
+    private final Path file;
+    private final NumberOfLevels numberOfLevels;
+    private final ExecutorService writer;
+    //the checkpoint which waits to be written; guarded by this
+    private Checkpoint pending;
+    //the last checkpoint taken, whose table may not be copied yet
+    private Checkpoint last;
+    private volatile IOException lastError;
+    
+    /**
+     * @param file              The checkpoint file.
+     * @param numberOfLevels    The number of levels of the board.
+     */
+    public Checkpointer(Path file, NumberOfLevels numberOfLevels) {
+        this.file = file;
+        this.numberOfLevels = numberOfLevels;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    /**
+     * Takes a checkpoint of a training and writes it in background.
+     * @param table     The action-value table.
+     * @param episodes  The number of episodes played by each worker.
+     * @param randoms   The random number generators of the training.
+     * @throws IOException if the previous checkpoint could not be written.
+     */
+    public void save(QTable table, long[] episodes, SavableRandom... randoms) throws IOException {
+        IOException error = lastError;
+        if (error != null) {
+            throw error;
+        }
+        Checkpoint checkpoint = Checkpoint.take(numberOfLevels, table, episodes, randoms);
+        last = checkpoint;
+        boolean scheduled;
+        synchronized (this) {
+            scheduled = pending != null;
+            pending = checkpoint;
+        }
+        if (!scheduled) {
+            writer.execute(this::writePending);
+        }
+    }
+    
+    private void writePending() {
+        Checkpoint checkpoint;
+        synchronized (this) {
+            checkpoint = pending;
+            pending = null;
+        }
+        try {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            checkpoint.write(temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            lastError = ex;
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * Completes the copy of the last checkpoint's table and waits for the 
+     * pending checkpoints to be written. It must be called by the thread 
+     * which uses the table.
+     * @throws IOException if a checkpoint could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (last != null) {
+            last.completeSnapshot();
+            last = null;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing a checkpoint", ex);
+        }
+        if (lastError != null) {
+            throw lastError;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.rlapi_examples.peggame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe version of {@link DenseQTable}, for a parallel training on the 
+ * small boards. The values are kept as the bits of <code>long</code>s in an 
+ * atomic array, so each value is read and written atomically and an update 
+ * is a compare-and-set loop, with no lock. The values of a state are not 
+ * read or written all at once: a concurrent update of the state may be seen 
+ * by some of its jumps only.
+ * 
+ * @author Alexandre Lima
+ */
+public class ConcurrentDenseQTable implements QTable {
+    
+    //number of state ids visited by forEachState(int, LongConsumer)
+    static final int CHUNK_SIZE = 1024;
+    
+    private final int numberOfJumps;
+    private final int numberOfStateIds;
+    //the bits of the doubles
+    private final AtomicLongArray values;
+    //bit s is set when the state s is stored
+    private final AtomicLongArray stored;
+    private final AtomicInteger numberOfStates = new AtomicInteger();
+    
+    /**
+     * @param numberOfLevels The number of levels of the board.
+     * @throws IllegalArgumentException if the table of the board does not fit 
+     * in an array.
+     */
+    public ConcurrentDenseQTable(NumberOfLevels numberOfLevels) {
+        long size = DenseQTable.getNumberOfValues(numberOfLevels);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The board is too big for a dense table: "
+                    + numberOfLevels);
+        }
+        this.numberOfJumps = JumpTable.forLevels(numberOfLevels).size();
+        this.values = new AtomicLongArray((int) size);
+        this.stored = new AtomicLongArray( 
+                (int) Math.max(1, (1L << numberOfLevels.getNumberOfPlaces()) / Long.SIZE));
+        this.numberOfStateIds = stored.length() * Long.SIZE;
+    }
+    
+    @Override
+    public int getNumberOfJumps() {
+        return numberOfJumps;
+    }
+    
+    @Override
+    public double getValue(long state, int jump) {
+        return Double.longBitsToDouble(values.get((int) state * numberOfJumps + jump));
+    }
+    
+    @Override
+    public void setValue(long state, int jump, double value) {
+        store(state);
+        values.set((int) state * numberOfJumps + jump, Double.doubleToRawLongBits(value));
+    }
+    
+    @Override
+    public boolean containsState(long state) {
+        return (stored.get((int) (state >>> 6)) & (1L << state)) != 0;
+    }
+    
+    @Override
+    public void getValues(long state, double[] values, int offset) {
+        int first = (int) state * numberOfJumps;
+        for (int jump = 0; jump < numberOfJumps; jump++) {
+            values[offset + jump] = Double.longBitsToDouble(this.values.get(first + jump));
+        }
+    }
+    
+    @Override
+    public void setValues(long state, double[] values, int offset) {
+        store(state);
+        int first = (int) state * numberOfJumps;
+        for (int jump = 0; jump < numberOfJumps; jump++) {
+            this.values.set(first + jump, Double.doubleToRawLongBits(values[offset + jump]));
+        }
+    }
+    
+    @Override
+    public void update(long state, int jump, double target, double alpha) {
+        store(state);
+        int i = (int) state * numberOfJumps + jump;
+        long bits;
+        double value;
+        do {
+            bits = values.get(i);
+            value = Double.longBitsToDouble(bits);
+        } while (!values.compareAndSet(i, bits, 
+                Double.doubleToRawLongBits(value + alpha * (target - value))));
+    }
+    
+    private void store(long state) {
+        int word = (int) (state >>> 6);
+        long bit = 1L << state;
+        if ((stored.get(word) & bit) == 0
+                && (stored.getAndAccumulate(word, bit, (a, b) -> a | b) & bit) == 0) {
+            numberOfStates.incrementAndGet();
+        }
+    }
+    
+    @Override
+    public int getNumberOfStates() {
+        return numberOfStates.get();
+    }
+    
+    /**
+     * Returns the number of chunks of {@value #CHUNK_SIZE} state ids.
+     * @return 
+     */
+    int getNumberOfChunks() {
+        return numberOfStateIds / CHUNK_SIZE + (numberOfStateIds % CHUNK_SIZE == 0 ? 0 : 1);
+    }
+    
+    /**
+     * Performs an action for each state stored in a chunk of 
+     * {@value #CHUNK_SIZE} state ids.
+     * @param chunk     The index of the chunk.
+     * @param action 
+     */
+    void forEachState(int chunk, LongConsumer action) {
+        int to = Math.min(numberOfStateIds, (chunk + 1) * CHUNK_SIZE);
+        for (int word = chunk * CHUNK_SIZE >>> 6; word < to >>> 6; word++) {
+            long bits = stored.get(word);
+            while (bits != 0) {
+                action.accept(((long) word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+    
+    @Override
+    public void forEachState(LongConsumer action) {
+        for (int chunk = 0; chunk < getNumberOfChunks(); chunk++) {
+            forEachState(chunk, action);
+        }
+    }
+}
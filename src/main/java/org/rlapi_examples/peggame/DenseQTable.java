@@ -0,0 +1,159 @@
+package org.rlapi_examples.peggame;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Action-value table with a value for every pair of board and jump: the value 
+ * of a pair is at <code>state * numberOfJumps + jump</code> of a single 
+ * <code>double</code> array, so a lookup is one array access. A bitset tells 
+ * which states have been stored. It fits the small boards only (see 
+ * {@link #getMemorySize(NumberOfLevels)}); the bigger ones need a 
+ * {@link HashQTable}.
+ * <p>
+ * A checkpoint takes a copy-on-write snapshot of the table (see 
+ * {@link TableSnapshot}), which copies the stored states chunk by chunk 
+ * along the next writes.
+ * 
+ * @author Alexandre Lima
+ */
+public class DenseQTable implements QTable {
+    
+    private final int numberOfJumps;
+    private final double[] values;
+    //bit s is set when the state s is stored
+    private final long[] stored;
+    private int numberOfStates;
+    //null when no snapshot is being taken
+    private TableSnapshot snapshot;
+    
+    /**
+     * @param numberOfLevels The number of levels of the board.
+     * @throws IllegalArgumentException if the table of the board does not fit 
+     * in an array.
+     */
+    public DenseQTable(NumberOfLevels numberOfLevels) {
+        long size = getNumberOfValues(numberOfLevels);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The board is too big for a dense table: " 
+                    + numberOfLevels);
+        }
+        this.numberOfJumps = JumpTable.forLevels(numberOfLevels).size();
+        this.values = new double[(int) size];
+        this.stored = new long[(int) Math.max(1, (1L << numberOfLevels.getNumberOfPlaces()) / Long.SIZE)];
+    }
+    
+    static long getNumberOfValues(NumberOfLevels numberOfLevels) {
+        int places = numberOfLevels.getNumberOfPlaces();
+        if (places >= 40) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << places) * JumpTable.forLevels(numberOfLevels).size();
+    }
+    
+    /**
+     * Returns the memory needed by the table of a board.
+     * @param numberOfLevels The number of levels of the board.
+     * @return The number of bytes or {@link Long#MAX_VALUE} if the table does 
+     * not fit in an array.
+     */
+    public static long getMemorySize(NumberOfLevels numberOfLevels) {
+        long size = getNumberOfValues(numberOfLevels);
+        if (size > Integer.MAX_VALUE - 8) {
+            return Long.MAX_VALUE;
+        }
+        return size * Double.BYTES + (1L << numberOfLevels.getNumberOfPlaces()) / Byte.SIZE;
+    }
+    
+    @Override
+    public int getNumberOfJumps() {
+        return numberOfJumps;
+    }
+    
+    @Override
+    public double getValue(long state, int jump) {
+        return values[(int) state * numberOfJumps + jump];
+    }
+    
+    @Override
+    public void setValue(long state, int jump, double value) {
+        store(state);
+        values[(int) state * numberOfJumps + jump] = value;
+    }
+    
+    @Override
+    public boolean containsState(long state) {
+        return (stored[(int) (state >>> 6)] & (1L << state)) != 0;
+    }
+    
+    @Override
+    public void getValues(long state, double[] values, int offset) {
+        System.arraycopy(this.values, (int) state * numberOfJumps, values, offset, numberOfJumps);
+    }
+    
+    @Override
+    public void setValues(long state, double[] values, int offset) {
+        store(state);
+        System.arraycopy(values, offset, this.values, (int) state * numberOfJumps, numberOfJumps);
+    }
+    
+    @Override
+    public void update(long state, int jump, double target, double alpha) {
+        store(state);
+        int i = (int) state * numberOfJumps + jump;
+        values[i] += alpha * (target - values[i]);
+    }
+    
+    private void store(long state) {
+        if (snapshot != null && snapshot.beforeWrite((int) state)) {
+            snapshot = null;
+        }
+        int word = (int) (state >>> 6);
+        long bit = 1L << state;
+        if ((stored[word] & bit) == 0) {
+            stored[word] |= bit;
+            numberOfStates++;
+        }
+    }
+    
+    /**
+     * Starts a snapshot of the stored states, which are copied along the next 
+     * writes. A previous snapshot which is not complete yet is completed now.
+     * @return 
+     */
+    TableSnapshot startSnapshot() {
+        if (snapshot != null) {
+            snapshot.complete();
+        }
+        int size = stored.length * Long.SIZE;
+        snapshot = new TableSnapshot(size, (from, to) -> {
+            //the chunks are whole words of the bitset
+            TableSnapshot.Rows chunk = new TableSnapshot.Rows(numberOfJumps, 0);
+            for (int word = from >>> 6; word < to >>> 6; word++) {
+                long bits = stored[word];
+                while (bits != 0) {
+                    int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    chunk.add(state, values, state * numberOfJumps);
+                    bits &= bits - 1;
+                }
+            }
+            return chunk;
+        });
+        return snapshot;
+    }
+    
+    @Override
+    public int getNumberOfStates() {
+        return numberOfStates;
+    }
+    
+    @Override
+    public void forEachState(LongConsumer action) {
+        for (int word = 0; word < stored.length; word++) {
+            long bits = stored[word];
+            while (bits != 0) {
+                action.accept(((long) word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+}
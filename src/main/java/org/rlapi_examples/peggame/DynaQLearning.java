@@ -0,0 +1,140 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Dyna-Q for a peg game. An agent plays the real episodes and records their 
+ * transitions in a {@link PegModel}; after each real episode, a planner 
+ * thread replays transitions drawn uniformly from the model while the agent 
+ * plays the next episode. A planning update costs a few array reads instead 
+ * of a move of the game, so the table learns from many more updates per real 
+ * move.
+ * <p>
+ * The agent and the planner update the same table, so it must be 
+ * thread-safe (see {@link StripedQTable}). The agent waits for the previous 
+ * planning to end before it asks for a new one, so the planner is at most 
+ * one episode behind.
+ * 
+ * @author Alexandre Lima
+ */
+public class DynaQLearning {
+    
+    private final PegQLearning agent;
+    private final PegModel model;
+    private final int planningSteps;
+    private final Random rand;
+    private final JumpTable jumps;
+    //planning buffers, used only by the planner thread
+    private final long[] states;
+    private final int[] sampledJumps;
+    private final double[] rewards;
+    private final long[] nextStates;
+    private final boolean[] terminal;
+    private final int[] moves;
+    private final double[] values;
+    private volatile long numberOfPlanningUpdates;
+    
+    public DynaQLearning(PegQLearning agent, int planningSteps) {
+        this(agent, planningSteps, new Random());
+    }
+    
+    /**
+     * @param agent         The agent of the real episodes. Its table must be 
+     * thread-safe.
+     * @param planningSteps The number of planning updates after each real 
+     * episode.
+     * @param rand          Random number generator of the planner.
+     */
+    public DynaQLearning(PegQLearning agent, int planningSteps, Random rand) {
+        if (planningSteps <= 0) {
+            throw new IllegalArgumentException("Invalid number of planning steps: " + planningSteps);
+        }
+        this.agent = agent;
+        this.planningSteps = planningSteps;
+        this.rand = rand;
+        this.jumps = agent.getGame().getJumpTable();
+        this.model = new PegModel(NumberOfLevels.of(jumps.getNumberOfLevels()));
+        this.states = new long[planningSteps];
+        this.sampledJumps = new int[planningSteps];
+        this.rewards = new double[planningSteps];
+        this.nextStates = new long[planningSteps];
+        this.terminal = new boolean[planningSteps];
+        this.moves = new int[jumps.size()];
+        this.values = new double[jumps.size()];
+        agent.setModel(model);
+    }
+    
+    /**
+     * Trains the agent until it has played a number of real episodes (see 
+     * {@link PegQLearning#runEpisodes(int, double, double, double)}).
+     * @param numberOfEpisodes  The number of real episodes of the whole training.
+     * @param alpha             The learning rate.
+     * @param gamma             The discount factor.
+     * @param epsilon           The probability of a random action.
+     * @throws InterruptedException if the thread is interrupted while waiting 
+     * for the planner.
+     */
+    public void runEpisodes(int numberOfEpisodes, double alpha, double gamma, double epsilon) 
+            throws InterruptedException {
+        ExecutorService planner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "dyna-planner");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Future<?> planning = null;
+            while (agent.getNumberOfEpisodes() < numberOfEpisodes) {
+                agent.runEpisodes((int) agent.getNumberOfEpisodes() + 1, alpha, gamma, epsilon);
+                if (planning != null) {
+                    planning.get();
+                }
+                planning = planner.submit(() -> plan(alpha, gamma));
+            }
+            if (planning != null) {
+                planning.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("The planner has failed", ex.getCause());
+        } finally {
+            planner.shutdownNow();
+        }
+    }
+    
+    /**
+     * Runs the planning updates of one episode on the caller's thread.
+     * @param alpha The learning rate.
+     * @param gamma The discount factor.
+     */
+    public void plan(double alpha, double gamma) {
+        int count = model.sample(rand, planningSteps, states, sampledJumps, rewards, nextStates, terminal);
+        for (int i = 0; i < count; i++) {
+            double target = rewards[i];
+            if (!terminal[i]) {
+                int nextCount = jumps.getValidJumps(nextStates[i], moves);
+                target += gamma * agent.getMaxValue(nextStates[i], moves, nextCount, values);
+            }
+            agent.update(states[i], sampledJumps[i], target, alpha);
+        }
+        numberOfPlanningUpdates += count;
+    }
+    
+    public PegModel getModel() {
+        return model;
+    }
+    
+    public PegQLearning getAgent() {
+        return agent;
+    }
+    
+    /**
+     * Returns the number of planning updates done.
+     * @return 
+     */
+    public long getNumberOfPlanningUpdates() {
+        return numberOfPlanningUpdates;
+    }
+}
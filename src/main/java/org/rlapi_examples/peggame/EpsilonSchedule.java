@@ -0,0 +1,38 @@
+package org.rlapi_examples.peggame;
+
+/**
+ * Probability of a random action of an e-greedy policy along the training.
+ * 
+ * @author Alexandre Lima
+ */
+public interface EpsilonSchedule {
+    
+    /**
+     * Returns the epsilon of an episode.
+     * @param episode           The index of the episode, starting from zero.
+     * @param numberOfEpisodes  The total number of episodes.
+     * @return 
+     */
+    double getEpsilon(int episode, int numberOfEpisodes);
+    
+    /**
+     * Returns a schedule which keeps the same epsilon for every episode.
+     * @param epsilon
+     * @return 
+     */
+    static EpsilonSchedule constant(double epsilon) {
+        return (episode, numberOfEpisodes) -> epsilon;
+    }
+    
+    /**
+     * Returns a schedule which decays linearly from a start epsilon, at the 
+     * first episode, to an end epsilon, at the last episode.
+     * @param start
+     * @param end
+     * @return 
+     */
+    static EpsilonSchedule linear(double start, double end) {
+        return (episode, numberOfEpisodes) -> numberOfEpisodes <= 1 ? start 
+                : start + (end - start) * episode / (numberOfEpisodes - 1);
+    }
+}
@@ -128,23 +128,19 @@ public class FrmPegGame extends javax.swing.JFrame {
      * @param args the command line arguments
      */
     public static void main(String args[]) {
-        String strLevels = JOptionPane.showInputDialog("Enter the number of levels (5 or 6):");
-        NumberOfLevels numberOfLevels;
+        String strLevels = JOptionPane.showInputDialog("Enter the number of levels ("
+                + NumberOfLevels.MIN_NUMBER + " to " + NumberOfLevels.MAX_NUMBER + "):");
         try{
-            int levels = Integer.parseInt(strLevels);
-            if(levels == 5)
-                numberOfLevels = NumberOfLevels.FIVE;
-            else if(levels == 6)
-                numberOfLevels = NumberOfLevels.SIX;
-            else
-                throw new NumberFormatException();
+            NumberOfLevels numberOfLevels = NumberOfLevels.of(Integer.parseInt(strLevels));
+            //the autopilot's policy is decoded while the window is built
+            PolicyCache.preload(numberOfLevels);
             
             SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
                     new FrmPegGame(numberOfLevels).setVisible(true);
                 }
             });
-        }catch(NumberFormatException ex){
+        }catch(IllegalArgumentException ex){ //NumberFormatException included
             JOptionPane.showMessageDialog(null, "Invalid value");
         }
     }
@@ -0,0 +1,153 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Action-value table backed by an open addressing hash from state ids to 
+ * dense rows of values. Each row has one value per jump of the board and 
+ * all the rows are kept in a single <code>double</code> array, so there is 
+ * neither boxing nor one object per state. The table holds at most 
+ * about 2<sup>31</sup> / (number of jumps) states, e. g. 9.9 million states of 
+ * the 216 jumps of a ten-level board; adding more states fails with an 
+ * {@link IllegalStateException}.
+ * <p>
+ * A checkpoint takes a copy-on-write snapshot of the table (see 
+ * {@link TableSnapshot}): the rows are copied chunk by chunk along the next 
+ * writes, so the training does not pause for the whole copy.
+ * 
+ * @author Alexandre Lima
+ */
+public class HashQTable implements QTable {
+    
+    //some JVMs reserve a few header words in an array
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    
+    private final int numberOfJumps;
+    //row index by state id
+    private final LongIntHashMap rows;
+    //state id by row index
+    private long[] states;
+    //values of the row r are at [r * numberOfJumps, (r + 1) * numberOfJumps)
+    private double[] values;
+    private int numberOfRows;
+    //the values of all the rows must fit in one array, so the indexes of the 
+    //values are ints
+    private final int maxNumberOfRows;
+    //null when no snapshot is being taken
+    private TableSnapshot snapshot;
+    
+    public HashQTable(NumberOfLevels numberOfLevels) {
+        this(JumpTable.forLevels(numberOfLevels).size());
+    }
+    
+    /**
+     * @param numberOfJumps The number of jumps of the board.
+     */
+    public HashQTable(int numberOfJumps) {
+        this.numberOfJumps = numberOfJumps;
+        this.maxNumberOfRows = MAX_ARRAY_LENGTH / Math.max(1, numberOfJumps);
+        this.rows = new LongIntHashMap();
+        this.states = new long[Math.min(16, maxNumberOfRows)];
+        this.values = new double[states.length * numberOfJumps];
+    }
+    
+    @Override
+    public int getNumberOfJumps() {
+        return numberOfJumps;
+    }
+    
+    @Override
+    public double getValue(long state, int jump) {
+        int row = rows.get(state, -1);
+        return row == -1 ? 0 : values[row * numberOfJumps + jump];
+    }
+    
+    @Override
+    public void setValue(long state, int jump, double value) {
+        int i = getOrCreateRow(state) * numberOfJumps + jump;
+        values[i] = value;
+    }
+    
+    @Override
+    public boolean containsState(long state) {
+        return rows.containsKey(state);
+    }
+    
+    @Override
+    public void getValues(long state, double[] values, int offset) {
+        int row = rows.get(state, -1);
+        if (row == -1) {
+            Arrays.fill(values, offset, offset + numberOfJumps, 0);
+        } else {
+            System.arraycopy(this.values, row * numberOfJumps, values, offset, numberOfJumps);
+        }
+    }
+    
+    @Override
+    public void setValues(long state, double[] values, int offset) {
+        int row = getOrCreateRow(state);
+        System.arraycopy(values, offset, this.values, row * numberOfJumps, numberOfJumps);
+    }
+    
+    @Override
+    public void update(long state, int jump, double target, double alpha) {
+        int i = getOrCreateRow(state) * numberOfJumps + jump;
+        values[i] += alpha * (target - values[i]);
+    }
+    
+    private int getOrCreateRow(long state) {
+        int row = rows.get(state, -1);
+        if (row == -1) {
+            if (numberOfRows == states.length) {
+                if (numberOfRows == maxNumberOfRows) {
+                    throw new IllegalStateException("The table is full: " + numberOfRows 
+                            + " states of " + numberOfJumps + " jumps");
+                }
+                int length = (int) Math.min(states.length * 2L, maxNumberOfRows);
+                states = Arrays.copyOf(states, length);
+                values = Arrays.copyOf(values, length * numberOfJumps);
+            }
+            row = numberOfRows++;
+            states[row] = state;
+            rows.put(state, row);
+        }
+        if (snapshot != null && snapshot.beforeWrite(row)) {
+            snapshot = null;
+        }
+        return row;
+    }
+    
+    /**
+     * Starts a snapshot of the table, which is copied along the next writes. 
+     * A previous snapshot which is not complete yet is completed now.
+     * @return 
+     */
+    TableSnapshot startSnapshot() {
+        if (snapshot != null) {
+            snapshot.complete();
+        }
+        //the rows created later are not in the snapshot, and the state of a 
+        //row never changes
+        snapshot = new TableSnapshot(numberOfRows, (from, to) -> {
+            TableSnapshot.Rows chunk = new TableSnapshot.Rows(numberOfJumps, to - from);
+            for (int row = from; row < to; row++) {
+                chunk.add(states[row], values, row * numberOfJumps);
+            }
+            return chunk;
+        });
+        return snapshot;
+    }
+    
+    @Override
+    public int getNumberOfStates() {
+        return numberOfRows;
+    }
+    
+    @Override
+    public void forEachState(LongConsumer action) {
+        for (int row = 0; row < numberOfRows; row++) {
+            action.accept(states[row]);
+        }
+    }
+}
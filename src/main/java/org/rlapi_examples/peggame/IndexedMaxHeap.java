@@ -0,0 +1,130 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap of non-negative int items with double priorities. It 
+ * knows the position of each item, so an item is never queued twice: offering 
+ * a queued item raises its priority instead.
+ * 
+ * @author Alexandre Lima
+ */
+class IndexedMaxHeap {
+    
+    private int[] items = new int[16];
+    private double[] priorities = new double[16];
+    //heap position by item (-1: not queued)
+    private int[] positions = new int[0];
+    private int size;
+    
+    /**
+     * Queues an item or raises its priority if it is queued with a lower one.
+     * @param item
+     * @param priority 
+     */
+    void offer(int item, double priority) {
+        if (item >= positions.length) {
+            int length = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(item + 1, length * 2));
+            Arrays.fill(positions, length, positions.length, -1);
+        }
+        int position = positions[item];
+        if (position == -1) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            position = size++;
+            items[position] = item;
+            priorities[position] = priority;
+            positions[item] = position;
+            siftUp(position);
+        } else if (priority > priorities[position]) {
+            priorities[position] = priority;
+            siftUp(position);
+        }
+    }
+    
+    /**
+     * Removes the item with the greatest priority.
+     * @return The item or -1 if the heap is empty.
+     */
+    int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int item = items[0];
+        positions[item] = -1;
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return item;
+    }
+    
+    /**
+     * Returns the greatest priority.
+     * @return The priority or NaN if the heap is empty.
+     */
+    double peekPriority() {
+        return size == 0 ? Double.NaN : priorities[0];
+    }
+    
+    boolean contains(int item) {
+        return item < positions.length && positions[item] != -1;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[items[i]] = -1;
+        }
+        size = 0;
+    }
+    
+    private void siftUp(int position) {
+        int item = items[position];
+        double priority = priorities[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (priorities[parent] >= priority) {
+                break;
+            }
+            move(parent, position);
+            position = parent;
+        }
+        place(item, priority, position);
+    }
+    
+    private void siftDown(int position) {
+        int item = items[position];
+        double priority = priorities[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && priorities[child + 1] > priorities[child]) {
+                child++;
+            }
+            if (priority >= priorities[child]) {
+                break;
+            }
+            move(child, position);
+            position = child;
+        }
+        place(item, priority, position);
+    }
+    
+    private void move(int from, int to) {
+        place(items[from], priorities[from], to);
+    }
+    
+    private void place(int item, double priority, int position) {
+        items[position] = item;
+        priorities[position] = priority;
+        positions[item] = position;
+    }
+}
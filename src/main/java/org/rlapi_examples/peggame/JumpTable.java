@@ -0,0 +1,236 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+
+/**
+ * Table with all the jumps allowed on a triangle board. A jump is the move of 
+ * a piece from a source place to a target place over an intermediate place. 
+ * The places are identified by their indexes, i. e., the first place from 
+ * level zero has index 0, the first place from level 1 has index 1, the 
+ * second place from level 1 has index 2 and so on. There is only one table 
+ * per board size, which is shared by all the games.
+ * 
+ * @author Alexandre Lima
+ */
+public final class JumpTable {
+    
+    /**
+     * The greatest number of levels of a board whose places fit in a 
+     * <code>long</code>.
+     */
+    public static final int MAX_NUMBER_OF_LEVELS = 10;
+    
+    //Directions of the jumps as (level, position) steps. The order is the same 
+    //order of the moves returned by the game: east, northeast, northwest, 
+    //west, southeast and southwest
+    private static final int[][] DIRECTIONS = {
+        {0, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, 1}, {1, 0}
+    };
+    
+    private static final JumpTable[] TABLES = new JumpTable[MAX_NUMBER_OF_LEVELS + 1];
+    
+    private final int numberOfLevels;
+    private final int numberOfPlaces;
+    private final int[] sources;
+    private final int[] overs;
+    private final int[] targets;
+    private final long[] sourceMasks;
+    private final long[] overMasks;
+    private final long[] targetMasks;
+    //Jump index by source place and target place (source * places + target)
+    private final int[] jumpsByPlaces;
+    
+    private JumpTable(int numberOfLevels) {
+        this.numberOfLevels = numberOfLevels;
+        this.numberOfPlaces = getNumberOfPlaces(numberOfLevels);
+        int[][] jumps = new int[numberOfPlaces * DIRECTIONS.length][];
+        int count = 0;
+        for (int level = 0; level < numberOfLevels; level++) {
+            for (int position = 0; position <= level; position++) {
+                for (int[] d : DIRECTIONS) {
+                    int targetLevel = level + 2 * d[0];
+                    int targetPosition = position + 2 * d[1];
+                    if (targetLevel >= 0 && targetLevel < numberOfLevels 
+                            && targetPosition >= 0 && targetPosition <= targetLevel) {
+                        jumps[count++] = new int[]{
+                            getPlaceIndex(level, position), 
+                            getPlaceIndex(level + d[0], position + d[1]), 
+                            getPlaceIndex(targetLevel, targetPosition)};
+                    }
+                }
+            }
+        }
+        this.sources = new int[count];
+        this.overs = new int[count];
+        this.targets = new int[count];
+        this.sourceMasks = new long[count];
+        this.overMasks = new long[count];
+        this.targetMasks = new long[count];
+        this.jumpsByPlaces = new int[numberOfPlaces * numberOfPlaces];
+        Arrays.fill(jumpsByPlaces, -1);
+        for (int i = 0; i < count; i++) {
+            sources[i] = jumps[i][0];
+            overs[i] = jumps[i][1];
+            targets[i] = jumps[i][2];
+            sourceMasks[i] = 1L << sources[i];
+            overMasks[i] = 1L << overs[i];
+            targetMasks[i] = 1L << targets[i];
+            jumpsByPlaces[sources[i] * numberOfPlaces + targets[i]] = i;
+        }
+    }
+    
+    /**
+     * Returns the jump table of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     */
+    public static JumpTable forLevels(NumberOfLevels numberOfLevels) {
+        return forLevels(numberOfLevels.number);
+    }
+    
+    /**
+     * Returns the jump table of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     * @throws IllegalArgumentException if the number of levels is lower than 
+     * 1 or greater than {@link #MAX_NUMBER_OF_LEVELS}.
+     */
+    public static JumpTable forLevels(int numberOfLevels) {
+        if (numberOfLevels < 1 || numberOfLevels > MAX_NUMBER_OF_LEVELS) {
+            throw new IllegalArgumentException("Invalid number of levels: " + numberOfLevels);
+        }
+        synchronized (TABLES) {
+            if (TABLES[numberOfLevels] == null) {
+                TABLES[numberOfLevels] = new JumpTable(numberOfLevels);
+            }
+            return TABLES[numberOfLevels];
+        }
+    }
+    
+    /**
+     * Returns the number of places of a board.
+     * @param numberOfLevels The number of levels (lines) in the board.
+     * @return 
+     */
+    public static int getNumberOfPlaces(int numberOfLevels) {
+        return numberOfLevels * (numberOfLevels + 1) / 2;
+    }
+    
+    /**
+     * Returns the index of a place.
+     * @param level     Level of the place.
+     * @param position  Position of the place inside its level.
+     * @return 
+     */
+    public static int getPlaceIndex(int level, int position) {
+        return level * (level + 1) / 2 + position;
+    }
+    
+    public int getNumberOfLevels() {
+        return numberOfLevels;
+    }
+    
+    public int getNumberOfPlaces() {
+        return numberOfPlaces;
+    }
+    
+    /**
+     * Returns the number of jumps of the table.
+     * @return 
+     */
+    public int size() {
+        return sources.length;
+    }
+    
+    public int getSource(int jump) {
+        return sources[jump];
+    }
+    
+    public int getOver(int jump) {
+        return overs[jump];
+    }
+    
+    public int getTarget(int jump) {
+        return targets[jump];
+    }
+    
+    public long getSourceMask(int jump) {
+        return sourceMasks[jump];
+    }
+    
+    public long getOverMask(int jump) {
+        return overMasks[jump];
+    }
+    
+    public long getTargetMask(int jump) {
+        return targetMasks[jump];
+    }
+    
+    /**
+     * Returns the jump between two places.
+     * @param source Index of the source place.
+     * @param target Index of the target place.
+     * @return The index of the jump or -1 if there is no jump between the places.
+     */
+    public int getJump(int source, int target) {
+        if (source < 0 || source >= numberOfPlaces || target < 0 || target >= numberOfPlaces) {
+            return -1;
+        }
+        return jumpsByPlaces[source * numberOfPlaces + target];
+    }
+    
+    /**
+     * Tells if a jump can be done on a board, i. e., the source and the 
+     * intermediate places are occupied and the target place is empty.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @param jump  Index of the jump.
+     * @return 
+     */
+    public boolean isValid(long board, int jump) {
+        return (board & sourceMasks[jump]) != 0 && (board & overMasks[jump]) != 0 
+                && (board & targetMasks[jump]) == 0;
+    }
+    
+    /**
+     * Writes the jumps that can be done on a board into an array.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @param jumps Array which receives the indexes of the valid jumps. Its 
+     * length must be at least the size of the table.
+     * @return The number of valid jumps written into <code>jumps</code>.
+     */
+    public int getValidJumps(long board, int[] jumps) {
+        int count = 0;
+        for (int i = 0; i < sources.length; i++) {
+            if (isValid(board, i)) {
+                jumps[count++] = i;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Tells if at least one jump can be done on a board. The search stops at 
+     * the first valid jump.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @return 
+     */
+    public boolean hasValidJump(long board) {
+        for (int i = 0; i < sources.length; i++) {
+            if (isValid(board, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the board after a jump. The jump is not validated.
+     * @param board A bitboard. The bit i is set when the place i is occupied.
+     * @param jump  Index of the jump.
+     * @return 
+     */
+    public long apply(long board, int jump) {
+        //source and intermediate (the 'eatten' piece) are cleared, target is occupied
+        return board ^ (sourceMasks[jump] | overMasks[jump] | targetMasks[jump]);
+    }
+}
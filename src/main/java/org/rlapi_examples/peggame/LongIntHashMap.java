@@ -0,0 +1,156 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+
+/**
+ * Map from <code>long</code> keys to <code>int</code> values based on open 
+ * addressing with linear probing. There is no boxing, so it is suited to 
+ * index tables by state ids (see {@link PegGame#getStateId()}).
+ * 
+ * @author Alexandre Lima
+ */
+class LongIntHashMap {
+    
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    //the key zero marks the free slots, so its value is kept apart
+    private boolean hasZeroKey;
+    private int zeroValue;
+    
+    LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * @param expectedSize Number of keys the map can hold without resizing.
+     */
+    LongIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+    
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * Returns the value of a key.
+     * @param key
+     * @param defaultValue Value returned when the map does not have the key.
+     * @return 
+     */
+    int get(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+    
+    boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Performs an action for each entry of the map.
+     * @param action 
+     */
+    void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+    
+    /**
+     * Action over an entry of the map.
+     */
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -1,16 +1,63 @@
 package org.rlapi_examples.peggame;
 
 /**
- *
+ * Number of levels (lines) of a board. Any number from 
+ * {@link #MIN_NUMBER} to {@link #MAX_NUMBER} is allowed; the greatest board 
+ * has 55 places, which still fit in the bits of a <code>long</code>.
+ * 
  * @author Alexandre Lima
  */
-public enum NumberOfLevels {
+public final class NumberOfLevels {
     
-    FIVE(5), SIX(6);
+    /**
+     * The number of levels of the smallest board which allows a jump.
+     */
+    public static final int MIN_NUMBER = 3;
+    
+    public static final int MAX_NUMBER = JumpTable.MAX_NUMBER_OF_LEVELS;
+    
+    private static final NumberOfLevels[] INSTANCES = new NumberOfLevels[MAX_NUMBER + 1];
+    
+    static {
+        for (int n = MIN_NUMBER; n <= MAX_NUMBER; n++) {
+            INSTANCES[n] = new NumberOfLevels(n);
+        }
+    }
+    
+    public static final NumberOfLevels FIVE = of(5);
+    public static final NumberOfLevels SIX = of(6);
     
     public final int number;
     
     private NumberOfLevels(int n){
         this.number = n;
     }
+    
+    /**
+     * Returns the number of levels of a board.
+     * @param n The number of levels.
+     * @return 
+     * @throws IllegalArgumentException if <code>n</code> is lower than 
+     * {@link #MIN_NUMBER} or greater than {@link #MAX_NUMBER}.
+     */
+    public static NumberOfLevels of(int n){
+        if(n < MIN_NUMBER || n > MAX_NUMBER){
+            throw new IllegalArgumentException("Invalid number of levels: " + n 
+                    + ". It must be between " + MIN_NUMBER + " and " + MAX_NUMBER);
+        }
+        return INSTANCES[n];
+    }
+    
+    /**
+     * Returns the number of places of the board.
+     * @return 
+     */
+    public int getNumberOfPlaces(){
+        return JumpTable.getNumberOfPlaces(number);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(number);
+    }
 }
@@ -0,0 +1,298 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Q-learning with several worker threads. Each worker plays its own 
+ * {@link PegGame} and all of them update the same thread-safe action-value 
+ * table (see {@link QTable#createThreadSafe(NumberOfLevels, long, int)}). The 
+ * number of episodes and the epsilon schedule are set per worker.
+ * <p>
+ * Optionally, a {@link Checkpointer} saves the training periodically. The 
+ * worker which reaches a checkpoint only copies the episode counters; the 
+ * table is streamed by the checkpointer's thread while all the workers keep 
+ * training, so the checkpoint holds the values of each state at some moment 
+ * during the writing. The workers are not paused, so the counters of the 
+ * other workers are read in the middle of their episodes and the table is 
+ * not aligned with any of them: a resumed parallel training is an 
+ * approximation of the interrupted one. For the same reason the random 
+ * number generators of the workers are not saved; a resumed training keeps 
+ * the generators of its workers.
+ * 
+ * @author Alexandre Lima
+ */
+public class ParallelPegQLearning {
+    
+    private final NumberOfLevels numberOfLevels;
+    private final QTable table;
+    private final List<Worker> workers = new ArrayList<>();
+    private boolean canonicalStates;
+    private int oracleNodeLimit;
+    //episodes played by all the workers
+    private final AtomicLong numberOfEpisodes = new AtomicLong();
+    //null when the training is not saved
+    private Checkpointer checkpointer;
+    private int checkpointInterval;
+    //null when the training is not measured
+    private TrainingMetrics metrics;
+    private int replayCapacity;
+    private int replayBatchSize;
+    
+    /**
+     * @param numberOfLevels    The number of levels of the board.
+     * @param table             The action-value table. It must be thread-safe.
+     */
+    public ParallelPegQLearning(NumberOfLevels numberOfLevels, QTable table) {
+        this.numberOfLevels = numberOfLevels;
+        this.table = table;
+    }
+    
+    /**
+     * Adds a worker.
+     * @param numberOfEpisodes  The number of episodes of the worker.
+     * @param epsilon           The epsilon schedule of the worker.
+     */
+    public void addWorker(int numberOfEpisodes, EpsilonSchedule epsilon) {
+        addWorker(numberOfEpisodes, epsilon, new Random());
+    }
+    
+    /**
+     * Adds a worker.
+     * @param numberOfEpisodes  The number of episodes of the worker.
+     * @param epsilon           The epsilon schedule of the worker.
+     * @param rand              Random number generator of the worker's policy.
+     */
+    public void addWorker(int numberOfEpisodes, EpsilonSchedule epsilon, Random rand) {
+        PegQLearning agent = new PegQLearning(new PegGame(numberOfLevels), table, rand);
+        agent.setCanonicalStates(canonicalStates);
+        agent.setOracle(createOracle());
+        agent.setMetrics(metrics);
+        agent.setReplay(createReplayBuffer(), replayBatchSize);
+        workers.add(new Worker(agent, numberOfEpisodes, epsilon));
+    }
+    
+    /**
+     * Trains the agent running all the workers in parallel.
+     * @param alpha The learning rate.
+     * @param gamma The discount factor.
+     * @return The greedy policy learned (see {@link PegQLearning#getPolicy()}).
+     * @throws InterruptedException if the thread is interrupted while waiting 
+     * for the workers.
+     */
+    public Map<String, String> train(double alpha, double gamma) throws InterruptedException {
+        runWorkers(alpha, gamma);
+        return getAgent().getPolicy();
+    }
+    
+    /**
+     * Trains the agent like {@link #train(double, double)}, but does not build 
+     * the policy. The policy can then be exported through {@link #getAgent()}.
+     * @param alpha The learning rate.
+     * @param gamma The discount factor.
+     * @throws InterruptedException if the thread is interrupted while waiting 
+     * for the workers.
+     */
+    public void runWorkers(double alpha, double gamma) throws InterruptedException {
+        if (workers.isEmpty()) {
+            throw new IllegalStateException("There is no worker");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Worker w : workers) {
+                results.add(executor.submit(task(w, alpha, gamma)));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A worker has failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Returns the agent of the first worker. All the agents share the table, 
+     * so its greedy policy (see {@link PegQLearning#getGreedyPolicy()} and 
+     * {@link PegQLearning#writePolicy(java.io.Writer)}) is the one learned.
+     * @return 
+     */
+    public PegQLearning getAgent() {
+        if (workers.isEmpty()) {
+            throw new IllegalStateException("There is no worker");
+        }
+        return workers.get(0).agent;
+    }
+    
+    /**
+     * Enables or disables the canonicalization of the states by the board 
+     * symmetries (see {@link PegQLearning#setCanonicalStates(boolean)}) for 
+     * all the workers.
+     * @param canonicalStates
+     */
+    public void setCanonicalStates(boolean canonicalStates) {
+        this.canonicalStates = canonicalStates;
+        for (Worker w : workers) {
+            w.agent.setCanonicalStates(canonicalStates);
+        }
+    }
+    
+    /**
+     * Ends the hopeless episodes of all the workers (see 
+     * {@link PegQLearning#setOracle(SolvabilityOracle)}). Each worker has its 
+     * own oracle.
+     * @param nodeLimit The node limit of the oracles' queries or zero to play 
+     * every episode until its end.
+     */
+    public void setOracleNodeLimit(int nodeLimit) {
+        this.oracleNodeLimit = nodeLimit;
+        for (Worker w : workers) {
+            w.agent.setOracle(createOracle());
+        }
+    }
+    
+    /**
+     * Sets the metrics shared by all the workers (see 
+     * {@link PegQLearning#setMetrics(TrainingMetrics)}).
+     * @param metrics The metrics or null to disable the instrumentation.
+     */
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+        for (Worker w : workers) {
+            w.agent.setMetrics(metrics);
+        }
+    }
+    
+    /**
+     * Enables the experience replay of all the workers (see 
+     * {@link PegQLearning#setReplay(ReplayBuffer, int)}). Each worker has its 
+     * own buffer.
+     * @param capacity  The capacity of the buffers or zero to disable the replay.
+     * @param batchSize The number of transitions replayed after each move.
+     */
+    public void setReplay(int capacity, int batchSize) {
+        this.replayCapacity = capacity;
+        this.replayBatchSize = batchSize;
+        for (Worker w : workers) {
+            w.agent.setReplay(createReplayBuffer(), batchSize);
+        }
+    }
+    
+    private ReplayBuffer createReplayBuffer() {
+        return replayCapacity > 0 ? new ReplayBuffer(replayCapacity) : null;
+    }
+    
+    private SolvabilityOracle createOracle() {
+        return oracleNodeLimit > 0 ? new SolvabilityOracle(numberOfLevels, oracleNodeLimit) : null;
+    }
+    
+    private Callable<Void> task(Worker w, double alpha, double gamma) {
+        return () -> {
+            for (; w.numberOfEpisodesPlayed < w.numberOfEpisodes; w.numberOfEpisodesPlayed++) {
+                w.agent.runEpisode(alpha, gamma, w.epsilon.getEpsilon(
+                        (int) w.numberOfEpisodesPlayed, w.numberOfEpisodes));
+                if (checkpointer != null 
+                        && numberOfEpisodes.incrementAndGet() % checkpointInterval == 0) {
+                    save(w);
+                }
+            }
+            return null;
+        };
+    }
+    
+    private void save(Worker current) throws IOException {
+        long[] episodes = new long[workers.size()];
+        for (int i = 0; i < workers.size(); i++) {
+            Worker w = workers.get(i);
+            //the current worker has not counted its last episode yet
+            episodes[i] = w.numberOfEpisodesPlayed + (w == current ? 1 : 0);
+        }
+        checkpointer.save(table, episodes);
+    }
+    
+    /**
+     * Saves the training periodically.
+     * @param checkpointer  The checkpointer or null to disable the checkpoints.
+     * @param interval      The number of episodes, summed over the workers, 
+     * between two checkpoints.
+     */
+    public void setCheckpointer(Checkpointer checkpointer, int interval) {
+        if (checkpointer != null && interval <= 0) {
+            throw new IllegalArgumentException("Invalid checkpoint interval: " + interval);
+        }
+        this.checkpointer = checkpointer;
+        this.checkpointInterval = interval;
+    }
+    
+    /**
+     * Resumes a training from a checkpoint: loads the values into the table 
+     * and restores the number of episodes played by each worker. The workers 
+     * must be added before and keep their random number generators.
+     * @param file The checkpoint file written by a training with the same 
+     * number of workers.
+     * @return The number of episodes already played by all the workers.
+     * @throws IOException if the file cannot be read or does not match the 
+     * training.
+     */
+    public long resume(Path file) throws IOException {
+        Checkpoint checkpoint = Checkpoint.load(file, table);
+        long[] episodes = checkpoint.getEpisodes();
+        if (episodes.length != workers.size()) {
+            throw new IOException("The checkpoint has " + episodes.length 
+                    + " workers instead of " + workers.size() + ": " + file);
+        }
+        long total = 0;
+        for (int i = 0; i < workers.size(); i++) {
+            Worker w = workers.get(i);
+            w.numberOfEpisodesPlayed = episodes[i];
+            total += episodes[i];
+        }
+        numberOfEpisodes.set(total);
+        return total;
+    }
+    
+    /**
+     * Returns the number of episodes played by all the workers, including 
+     * the ones of a resumed training.
+     * @return 
+     */
+    public long getNumberOfEpisodes() {
+        long total = 0;
+        for (Worker w : workers) {
+            total += w.numberOfEpisodesPlayed;
+        }
+        return total;
+    }
+    
+    public QTable getTable() {
+        return table;
+    }
+    
+    private static class Worker {
+        
+        final PegQLearning agent;
+        final int numberOfEpisodes;
+        final EpsilonSchedule epsilon;
+        //written only by the worker's thread
+        volatile long numberOfEpisodesPlayed;
+        
+        Worker(PegQLearning agent, int numberOfEpisodes, EpsilonSchedule epsilon) {
+            this.agent = agent;
+            this.numberOfEpisodes = numberOfEpisodes;
+            this.epsilon = epsilon;
+        }
+    }
+}
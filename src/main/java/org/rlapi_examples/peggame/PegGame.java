@@ -1,6 +1,7 @@
 package org.rlapi_examples.peggame;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import org.rlapi.Environment;
@@ -13,6 +14,23 @@ import org.rlapi.Environment;
 public class PegGame implements Environment{
     
     private final List<Place> places;
+    //Bitboard: the bit i is set when the place i is occupied
+    private long board;
+    //Number of bits set on the board, kept along the moves
+    private int numberOfOccupiedPlaces;
+    private final JumpTable jumps;
+    private final ActionCodec codec;
+    //Valid moves of the board (see getValidMoves(int[])), cached per state 
+    //version. The version changes whenever the board changes
+    private final int[] moveBuffer;
+    private int numberOfValidMoves;
+    private long version;
+    private long movesVersion = -1;
+    //result of hasAnyMove() when the moves were not generated
+    private boolean anyMove;
+    private long anyMoveVersion = -1;
+    private List<String> actions;
+    private long actionsVersion = -1;
     private int numberOfLevels;
     private int initialNumberOfEmptyPlaces;
     private Random rand;
@@ -22,20 +40,83 @@ public class PegGame implements Environment{
      * @param levels The number of levels (lines) in the board.
      */
     public PegGame(NumberOfLevels levels) {
-        this.rand = new Random();
+        this(levels, new SavableRandom());
+    }
+    
+    /**
+     * Creates a new game together with its places and pieces.
+     * @param levels The number of levels (lines) in the board. See 
+     * {@link NumberOfLevels#of(int)} for the allowed values.
+     */
+    public PegGame(int levels) {
+        this(NumberOfLevels.of(levels));
+    }
+    
+    /**
+     * Creates a new game together with its places and pieces.
+     * @param levels The number of levels (lines) in the board.
+     * @param rand Random number generator used to start and reset the game. 
+     * A seeded generator makes the games reproducible.
+     */
+    public PegGame(NumberOfLevels levels, Random rand) {
+        this.rand = rand;
         this.numberOfLevels = levels.number;
         this.initialNumberOfEmptyPlaces = 1;
         this.places = new ArrayList<>();
         //creates the places without the pieces
         for (int level = 0; level < numberOfLevels; level++) {
             for (int position = 0; position <= level; position++) {
-                Place c = new Place(level, position);
+                Place c = new Place(this, places.size(), level, position);
                 places.add(c);
             }
         }
+        this.jumps = JumpTable.forLevels(levels);
+        this.codec = ActionCodec.forLevels(levels);
+        this.moveBuffer = new int[jumps.size()];
         startGame();
     }
     
+    /**
+     * Returns the random number generator used to start and reset the game.
+     */
+    Random getRandom(){
+        return rand;
+    }
+    
+    /**
+     * Replaces the random number generator used to start and reset the game.
+     */
+    void setRandom(Random rand){
+        this.rand = rand;
+    }
+    
+    /**
+     * Tells if a place is occupied.
+     * @param index Index of the place on the list of places.
+     */
+    boolean isOccupied(int index){
+        return (board & (1L << index)) != 0;
+    }
+    
+    /**
+     * Puts or removes the piece of a place.
+     * @param index Index of the place on the list of places.
+     * @param occupied true to put a piece and false to remove it.
+     */
+    void setOccupied(int index, boolean occupied){
+        if(occupied == isOccupied(index))
+            return;
+        if(occupied){
+            board |= 1L << index;
+            numberOfOccupiedPlaces++;
+        }
+        else{
+            board &= ~(1L << index);
+            numberOfOccupiedPlaces--;
+        }
+        version++;
+    }
+    
     public void setInitialNumberOfEmptyPlaces(int number) {
         if(number < 1 && number > places.size() - 2)
             throw new IllegalArgumentException("Invalid value for the initial number of empty places: " + number);
@@ -56,31 +137,35 @@ public class PegGame implements Environment{
             throw new IllegalArgumentException("The input number of places is "
                     + "different from the current number");
         }
-        for(int i = 0; i < newState.length(); i++){
-            char c = newState.charAt(i);
-            if(c == '1'){
-                if(!places.get(i).isOccupied())
-                    places.get(i).occupy();
-            }
-            else if(c == '0'){
-                if(places.get(i).isOccupied())
-                    places.get(i).clear();
-            }
-            else{
-                throw new IllegalArgumentException("Character not allowed in "
-                        + "the inputed string: " + c);
-            }
+        board = parseBinaryRepresentation(newState);
+        numberOfOccupiedPlaces = Long.bitCount(board);
+        version++;
+    }
+    
+    /**
+     * Changes de board towards the inputed state.
+     * @param stateId indicates the new board set. The bit i is set when the 
+     * place i is occupied (see {@link #getStateId()}).
+     * @throws IllegalArgumentException if <code>stateId</code> has a bit set 
+     * for a place that does not exist on the board.
+     */
+    public void setBoardState(long stateId){
+        if(places.size() < Long.SIZE && (stateId >>> places.size()) != 0){
+            throw new IllegalArgumentException("The state has more places than "
+                    + "the current board: " + stateId);
         }
+        board = stateId;
+        numberOfOccupiedPlaces = Long.bitCount(board);
+        version++;
     }
 
     /**
      * Starts a new game, i. e., randomly fills the places with pieces.
      */
     public void startGame() {
-        for (Place place : places) {
-            if(!place.isOccupied())
-                place.occupy();
-        }
+        board = places.size() == Long.SIZE ? -1L : (1L << places.size()) - 1;
+        numberOfOccupiedPlaces = places.size();
+        version++;
         //Randomly removes pieces according to initial number of empty places
         int i = 0;
         while (i < getInitialNumberOfEmptyPlaces()) {
@@ -161,10 +246,8 @@ public class PegGame implements Environment{
      * @return true if the move is valid and false in the other case.
      */
     public boolean movePiece(String move){
-        int spaceIndex = move.indexOf(" ");
-        int numberOfSourcePlace = Integer.parseInt( move.substring(0, spaceIndex) );
-        int numberOfTargetPlace = Integer.parseInt( move.substring(spaceIndex + 1) );
-        return movePiece(places.get(numberOfSourcePlace - 1), places.get(numberOfTargetPlace - 1));
+        int jump = codec.decode(move);
+        return jump != -1 && movePiece(jump);
     }
     
     /**
@@ -197,60 +280,24 @@ public class PegGame implements Environment{
      * @return  true if the move is valid and false in the other case.
      */
     public boolean movePiece(Place source, Place target) {
-        //TODO use the method getValidMoves
-        if (!source.isOccupied() || target.isOccupied()) {
+        int jump = jumps.getJump(source.getIndex(), target.getIndex());
+        return jump != -1 && movePiece(jump);
+    }
+    
+    /**
+     * Moves a piece according to a jump of the game's jump table. The 
+     * transfer will happen only if the jump is valid for the current board.
+     * @param jump Index of the jump on the table returned by {@link #getJumpTable()}.
+     * @return true if the move is valid and false in the other case.
+     */
+    public boolean movePiece(int jump){
+        if (!jumps.isValid(board, jump)) {
             return false;
         }
-        //Checks if target is the northeast neighbor of the northeast neighbor of source
-        Place intermediator = getNortheastNeighbor(source);
-        if (getNortheastNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        //As above but to northwest position
-        intermediator = getNorthwestNeighbor(source);
-        if (getNorthwestNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        //As above but to east position
-        intermediator = getEastNeighbor(source);
-        if (getEastNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        //As above but to west position
-        intermediator = getWestNeighbor(source);
-        if (getWestNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        //As above but to southeast position
-        intermediator = getSoutheastNeighbor(source);
-        if (getSoutheastNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        //As above but to southwest position
-        intermediator = getSouthwestNeighbor(source);
-        if (getSouthwestNeighbor(intermediator) == target && intermediator.isOccupied()) {
-            source.clear();
-            target.occupy();
-            intermediator.clear(); //piece is 'eatten'
-            return true;
-        }
-        
-        return false;
+        board = jumps.apply(board, jump);
+        numberOfOccupiedPlaces--;
+        version++;
+        return true;
     }
     
     /**
@@ -264,15 +311,11 @@ public class PegGame implements Environment{
      * @return 
      */
     public List<String> getValidMoves2(){
-        List<Integer[]> moves = getValidMoves();
-        List<String> result = new ArrayList<>(moves.size());
-        for(Integer[] m : moves){
-            Place source = getPlace(m[0], m[1]);
-            Place target = getPlace(m[2], m[3]);
-            //Notice that for the first place its number is 1
-            result.add((places.indexOf(source) + 1) + " " + (places.indexOf(target) + 1) );
-        }
-        
+        int count = updateValidMoves();
+        List<String> result = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            result.add(codec.encode(moveBuffer[i]));
+        }
         return result;
     }
     
@@ -283,45 +326,48 @@ public class PegGame implements Environment{
      * 2 - target level; 3 - target position.
      */
     public List<Integer[]> getValidMoves() {
-        List<Integer[]> moves = new ArrayList<>();
-        for (Place source : places) {
-            if (source.isOccupied()) {
-                //EAST
-                Place neighbor = getEastNeighbor(source);
-                Place neighborOfNeighbor = getEastNeighbor(neighbor); //neighbor of neigbhor is the target
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-                //NORTHEAST
-                neighbor = getNortheastNeighbor(source);
-                neighborOfNeighbor = getNortheastNeighbor(neighbor);
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-                //NORTHWEST
-                neighbor = getNorthwestNeighbor(source);
-                neighborOfNeighbor = getNorthwestNeighbor(neighbor);
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-                //WEST
-                neighbor = getWestNeighbor(source);
-                neighborOfNeighbor = getWestNeighbor(neighbor);
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-                //SOUTHEAST
-                neighbor = getSoutheastNeighbor(source);
-                neighborOfNeighbor = getSoutheastNeighbor(neighbor);
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-                //SOUTHWEST
-                neighbor = getSouthwestNeighbor(source);
-                neighborOfNeighbor = getSouthwestNeighbor(neighbor);
-                processMove(source, neighbor, neighborOfNeighbor, moves);
-            }
+        int count = updateValidMoves();
+        List<Integer[]> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Place source = places.get(jumps.getSource(moveBuffer[i]));
+            Place target = places.get(jumps.getTarget(moveBuffer[i]));
+            moves.add(new Integer[]{source.getLevel(), source.getPosition(), 
+                target.getLevel(), target.getPosition()});
         }
         return moves;
     }
     
-    private void processMove(Place source, Place neighbor, Place neighborOfNeighbor, 
-            List<Integer[]> moves){
-        if(neighborOfNeighbor != null && neighbor != null && 
-                neighbor.isOccupied() && !neighborOfNeighbor.isOccupied()){
-            moves.add(new Integer[]{source.getLevel(), source.getPosition(), 
-            neighborOfNeighbor.getLevel(), neighborOfNeighbor.getPosition()});
+    /**
+     * Writes the valid moves to the current board state into an array. No 
+     * object is allocated.
+     * @param moves Array which receives the indexes of the valid jumps (see 
+     * {@link #getJumpTable()}). Its length must be at least the number of 
+     * jumps of the table.
+     * @return The number of valid moves written into <code>moves</code>.
+     */
+    public int getValidMoves(int[] moves) {
+        int count = updateValidMoves();
+        System.arraycopy(moveBuffer, 0, moves, 0, count);
+        return count;
+    }
+    
+    //Generates the valid moves into the buffer if the board has changed since 
+    //the last generation. Returns the number of valid moves
+    private int updateValidMoves() {
+        if (movesVersion != version) {
+            numberOfValidMoves = jumps.getValidJumps(board, moveBuffer);
+            movesVersion = version;
         }
+        return numberOfValidMoves;
+    }
+    
+    /**
+     * Returns the table of the jumps allowed on the board. The moves of the 
+     * primitive API are indexes of this table.
+     * @return
+     */
+    public JumpTable getJumpTable() {
+        return jumps;
     }
 
     /**
@@ -430,12 +476,10 @@ public class PegGame implements Environment{
      * on the board).
      */
     public Place getPlace(int level, int position) {
-        for (Place c : places) {
-            if (c.getLevel() == level && c.getPosition() == position) {
-                return c;
-            }
+        if (level < 0 || level >= numberOfLevels || position < 0 || position > level) {
+            return null;
         }
-        return null;
+        return places.get(JumpTable.getPlaceIndex(level, position));
     }
 
     public int getInitialNumberOfEmptyPlaces() {
@@ -463,33 +507,131 @@ public class PegGame implements Environment{
      * @return
      */
     public String getBinaryRepresentation(){
-        String representation = "";
-        for(Place c : places){
-            if(c.isOccupied()){
-                representation += 1;
+        return toBinaryRepresentation(board, places.size());
+    }
+    
+    /**
+     * Returns a number which represents the current board state. The bit i 
+     * (from the least significant one) is set when the place i is occupied, 
+     * i. e., the bit 0 represents the first place from level zero, the bit 1 
+     * represents the first place from level 1 and so on. This is the numeric 
+     * form of {@link #getBinaryRepresentation()} and should be preferred as 
+     * key of tables, since it requires no allocation.
+     * @return
+     */
+    public long getStateId(){
+        return board;
+    }
+    
+    /**
+     * Returns the state id (see {@link #getStateId()}) as an <code>int</code>. 
+     * Available only for boards with up to 31 places.
+     * @return
+     * @throws IllegalStateException if the board has more than 31 places.
+     */
+    public int getCompactStateId(){
+        if(places.size() > Integer.SIZE - 1){
+            throw new IllegalStateException("The board has too many places for "
+                    + "an int state id: " + places.size());
+        }
+        return (int) board;
+    }
+    
+    /**
+     * Converts a state id (see {@link #getStateId()}) into its binary 
+     * representation (see {@link #getBinaryRepresentation()}).
+     * @param stateId           The state id.
+     * @param numberOfPlaces    The number of places of the board.
+     * @return
+     */
+    public static String toBinaryRepresentation(long stateId, int numberOfPlaces){
+        char[] representation = new char[numberOfPlaces];
+        for(int i = 0; i < numberOfPlaces; i++){
+            representation[i] = (stateId & (1L << i)) != 0 ? '1' : '0';
+        }
+        return new String(representation);
+    }
+    
+    /**
+     * Converts a binary representation (see {@link #getBinaryRepresentation()}) 
+     * into its state id (see {@link #getStateId()}).
+     * @param representation The binary representation of a board.
+     * @return
+     * @throws IllegalArgumentException if <code>representation</code> has a 
+     * character different from 1 or 0 or more characters than the bits of a 
+     * <code>long</code>.
+     */
+    public static long parseBinaryRepresentation(CharSequence representation){
+        return parseBinaryRepresentation(representation, 0, representation.length());
+    }
+    
+    /**
+     * Converts a slice of a string into a state id. See 
+     * {@link #parseBinaryRepresentation(java.lang.CharSequence)}.
+     * @param text  A text which contains the binary representation of a board.
+     * @param start Index of the first character of the representation.
+     * @param end   Index after the last character of the representation.
+     * @return
+     */
+    public static long parseBinaryRepresentation(CharSequence text, int start, int end){
+        if(end - start > Long.SIZE){
+            throw new IllegalArgumentException("The board has too many places: " 
+                    + (end - start));
+        }
+        long stateId = 0;
+        for(int i = start; i < end; i++){
+            char c = text.charAt(i);
+            if(c == '1'){
+                stateId |= 1L << (i - start);
             }
-            else{
-                representation += 0;
+            else if(c != '0'){
+                throw new IllegalArgumentException("Character not allowed in "
+                        + "the inputed string: " + c);
             }
         }
-        return representation;
+        return stateId;
     }
     
     public int getNumberOfOccupiedPlaces(){
-        int number = places.stream()
-                .filter(p -> p.isOccupied())
-                .mapToInt(item -> 1)
-                .sum();
-        return number;
+        return numberOfOccupiedPlaces;
     }
     
     public boolean isEndOfGame(){
-        return getAvailableActions().isEmpty();
+        return !hasAnyMove();
+    }
+    
+    /**
+     * Tells if there is at least one valid move to the current board state. 
+     * The moves already generated for the current state are reused; 
+     * otherwise the search stops at the first valid move and its result is 
+     * kept until the board changes.
+     * @return
+     */
+    public boolean hasAnyMove(){
+        if (movesVersion == version) {
+            return numberOfValidMoves > 0;
+        }
+        if (anyMoveVersion != version) {
+            //a jump removes a piece, so a board with less than two pieces has no move
+            anyMove = numberOfOccupiedPlaces > 1 && jumps.hasValidJump(board);
+            anyMoveVersion = version;
+        }
+        return anyMove;
     }
 
+    /**
+     * Returns the valid moves (see {@link #getValidMoves2()}). The list is 
+     * built once per board state and shared by the calls until the board 
+     * changes, so it cannot be modified.
+     * @return
+     */
     @Override
     public List<String> getAvailableActions() {
-        return getValidMoves2();
+        if (actionsVersion != version) {
+            actions = Collections.unmodifiableList(getValidMoves2());
+            actionsVersion = version;
+        }
+        return actions;
     }
 
     @Override
@@ -499,15 +641,33 @@ public class PegGame implements Environment{
 
     @Override
     public Double performAction(String action) {
-        boolean validMove = movePiece(action);
-        if(!validMove)
+        int jump = codec.decode(action);
+        if(jump == -1)
             return null;
+        double reward = performAction(jump);
+        if(Double.isNaN(reward))
+            return null;
+        return reward;
+    }
+    
+    /**
+     * Performs a move and returns the reward of the transition. No object is 
+     * allocated.
+     * @param jump Index of the jump on the table returned by {@link #getJumpTable()}.
+     * @return The reward or <code>Double.NaN</code> if the move is not valid.
+     */
+    public double performAction(int jump) {
+        boolean validMove = movePiece(jump);
+        if(!validMove)
+            return Double.NaN;
         int occupiedPlaces = getNumberOfOccupiedPlaces();
         if(occupiedPlaces == 1){
             //System.out.println("It Hits!!");
             return 100.0;
         }
-        else if(isInTerminalState() && occupiedPlaces != 1)
+        //the moves are generated once and reused by the next calls which 
+        //need them, like getValidMoves(int[]) and isInTerminalState()
+        else if(updateValidMoves() == 0)
             return -100.0;
         return 1.0;
     }
@@ -0,0 +1,204 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+
+/**
+ * A batch of peg games which are played together over the primitive API: the 
+ * boards are state ids (see {@link PegGame#getStateId()}) kept in a 
+ * <code>long[]</code> and the actions are jump indexes (see {@link JumpTable}). 
+ * A step applies one action to each board and returns the results in 
+ * primitive arrays, so a batched rollout allocates no object.
+ * <p>
+ * The rewards are the ones of {@link PegGame#performAction(int)}. A finished 
+ * board is replaced by a new starting board in the same step (auto-reset).
+ * 
+ * @author Alexandre Lima
+ */
+public class PegGameBatch {
+    
+    private final JumpTable jumps;
+    private final int numberOfLevels;
+    //board with all the places occupied
+    private final long fullBoard;
+    private final long[] boards;
+    private final Random rand;
+    private final int[] moveBuffer;
+    private int initialNumberOfEmptyPlaces = 1;
+    
+    /**
+     * Creates a batch and starts all its games.
+     * @param levels    The number of levels of the boards.
+     * @param size      The number of boards.
+     */
+    public PegGameBatch(NumberOfLevels levels, int size) {
+        this(levels, size, new Random());
+    }
+    
+    /**
+     * Creates a batch and starts all its games.
+     * @param levels    The number of levels of the boards.
+     * @param size      The number of boards.
+     * @param rand      Random number generator used to start the games and 
+     * to choose random actions.
+     */
+    public PegGameBatch(NumberOfLevels levels, int size, Random rand) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + size);
+        }
+        this.jumps = JumpTable.forLevels(levels);
+        this.numberOfLevels = levels.number;
+        this.fullBoard = jumps.getNumberOfPlaces() == Long.SIZE ? -1L : (1L << jumps.getNumberOfPlaces()) - 1;
+        this.boards = new long[size];
+        this.rand = rand;
+        this.moveBuffer = new int[jumps.size()];
+        reset();
+    }
+    
+    /**
+     * Starts new games on all the boards.
+     */
+    public void reset() {
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = createStartingBoard();
+        }
+    }
+    
+    //The empty places are drawn like in PegGame.startGame(). The board is 
+    //drawn again when it has no move
+    private long createStartingBoard() {
+        long board;
+        do {
+            board = fullBoard;
+            int i = 0;
+            while (i < initialNumberOfEmptyPlaces) {
+                int n = rand.nextInt(numberOfLevels);
+                int pos = rand.nextInt(n + 1);
+                long mask = 1L << JumpTable.getPlaceIndex(n, pos);
+                if ((board & mask) != 0) {
+                    board &= ~mask;
+                    i++;
+                }
+            }
+        } while (!jumps.hasValidJump(board));
+        return board;
+    }
+    
+    /**
+     * Applies one action to each board. A finished board is replaced by a 
+     * new starting board: its next state is the finished board, while 
+     * {@link #getState(int)} returns the new one.
+     * @param actions       The jump of each board.
+     * @param rewards       Receives the reward of each action. It is NaN for 
+     * an invalid action, which leaves the board unchanged.
+     * @param terminal      Receives true for the boards whose game has ended.
+     * @param nextStates    Receives the state id of each board after the action.
+     */
+    public void step(int[] actions, double[] rewards, boolean[] terminal, long[] nextStates) {
+        for (int i = 0; i < boards.length; i++) {
+            long board = boards[i];
+            int jump = actions[i];
+            if (jump < 0 || jump >= jumps.size() || !jumps.isValid(board, jump)) {
+                rewards[i] = Double.NaN;
+                terminal[i] = false;
+                nextStates[i] = board;
+                continue;
+            }
+            board = jumps.apply(board, jump);
+            nextStates[i] = board;
+            if (Long.bitCount(board) == 1) {
+                rewards[i] = 100.0;
+                terminal[i] = true;
+            } else if (!jumps.hasValidJump(board)) {
+                rewards[i] = -100.0;
+                terminal[i] = true;
+            } else {
+                rewards[i] = 1.0;
+                terminal[i] = false;
+            }
+            boards[i] = terminal[i] ? createStartingBoard() : board;
+        }
+    }
+    
+    /**
+     * Chooses a random valid action for each board.
+     * @param actions Receives the jump of each board, or -1 when the board 
+     * has no move.
+     */
+    public void chooseRandomActions(int[] actions) {
+        for (int i = 0; i < boards.length; i++) {
+            int count = jumps.getValidJumps(boards[i], moveBuffer);
+            actions[i] = count == 0 ? -1 : moveBuffer[rand.nextInt(count)];
+        }
+    }
+    
+    /**
+     * Chooses the action of a policy for each board.
+     * @param policy    The policy.
+     * @param actions   Receives the jump of each board, or -1 when the policy 
+     * has no move for the board.
+     */
+    public void chooseActions(PegPolicy policy, int[] actions) {
+        for (int i = 0; i < boards.length; i++) {
+            actions[i] = policy.getMove(boards[i]);
+        }
+    }
+    
+    /**
+     * Returns the state id of a board.
+     * @param index The index of the board.
+     * @return 
+     */
+    public long getState(int index) {
+        return boards[index];
+    }
+    
+    /**
+     * Copies the state ids of all the boards.
+     * @param states Receives the state ids.
+     */
+    public void getStates(long[] states) {
+        System.arraycopy(boards, 0, states, 0, boards.length);
+    }
+    
+    /**
+     * Sets the state of a board.
+     * @param index The index of the board.
+     * @param state The state id.
+     */
+    public void setState(int index, long state) {
+        if ((state & ~fullBoard) != 0) {
+            throw new IllegalArgumentException("The state id does not fit the board: " + state);
+        }
+        boards[index] = state;
+    }
+    
+    /**
+     * Returns the number of boards.
+     * @return 
+     */
+    public int size() {
+        return boards.length;
+    }
+    
+    public JumpTable getJumpTable() {
+        return jumps;
+    }
+    
+    public int getInitialNumberOfEmptyPlaces() {
+        return initialNumberOfEmptyPlaces;
+    }
+    
+    /**
+     * Sets the number of empty places of the new starting boards. It takes 
+     * effect on the next resets.
+     * @param initialNumberOfEmptyPlaces A number from 1 to the number of 
+     * places minus 2.
+     */
+    public void setInitialNumberOfEmptyPlaces(int initialNumberOfEmptyPlaces) {
+        if (initialNumberOfEmptyPlaces < 1 || initialNumberOfEmptyPlaces > jumps.getNumberOfPlaces() - 2) {
+            throw new IllegalArgumentException("Invalid number of empty places: " 
+                    + initialNumberOfEmptyPlaces);
+        }
+        this.initialNumberOfEmptyPlaces = initialNumberOfEmptyPlaces;
+    }
+}
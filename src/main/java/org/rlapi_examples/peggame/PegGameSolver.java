@@ -0,0 +1,233 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exact solver of the peg game. It searches every position reachable from a 
+ * board (memoized depth-first search) and keeps, for each position, the 
+ * lowest number of pieces which can be left on the board and the move which 
+ * leads to it. A position is solvable when only one piece can be left.
+ * <p>
+ * The positions of boards up to {@value #MAX_PLACES_OF_DENSE_TABLE} places 
+ * are stored in an array indexed by the state id (see 
+ * {@link PegGame#getStateId()}); the positions of greater boards are stored 
+ * in a hash.
+ * 
+ * @author Alexandre Lima
+ */
+public class PegGameSolver {
+    
+    public static final int MAX_PLACES_OF_DENSE_TABLE = 24;
+    
+    private final NumberOfLevels numberOfLevels;
+    private final JumpTable jumps;
+    //Solved positions: (lowest number of pieces << 8) | (best jump + 1). Zero 
+    //means a position not solved yet
+    private final int[] dense;
+    private final LongIntHashMap sparse;
+    private int numberOfSolvedStates;
+    //move buffers by number of pieces, so the search allocates nothing
+    private final int[][] moves;
+    
+    public PegGameSolver(NumberOfLevels numberOfLevels) {
+        this.numberOfLevels = numberOfLevels;
+        this.jumps = JumpTable.forLevels(numberOfLevels);
+        if (jumps.getNumberOfPlaces() <= MAX_PLACES_OF_DENSE_TABLE) {
+            this.dense = new int[1 << jumps.getNumberOfPlaces()];
+            this.sparse = null;
+        } else {
+            this.dense = null;
+            this.sparse = new LongIntHashMap();
+        }
+        this.moves = new int[jumps.getNumberOfPlaces() + 1][jumps.size()];
+    }
+    
+    /**
+     * Solves every board which has a number of empty places, i. e., every 
+     * board that {@link PegGame#startGame()} can create with that number.
+     * @param numberOfEmptyPlaces 
+     */
+    public void solveStartingBoards(int numberOfEmptyPlaces) {
+        int n = jumps.getNumberOfPlaces();
+        long full = (1L << n) - 1;
+        //enumerates the subsets of places with numberOfEmptyPlaces elements
+        long empty = (1L << numberOfEmptyPlaces) - 1;
+        while (empty <= full && empty != 0) {
+            solve(full & ~empty);
+            long c = empty & -empty;
+            long r = empty + c;
+            empty = (((r ^ empty) >>> 2) / c) | r;
+        }
+    }
+    
+    /**
+     * Solves a board and every position reachable from it.
+     * @param board The state id of the board.
+     * @return The lowest number of pieces which can be left on the board.
+     */
+    public int solve(long board) {
+        int entry = get(board);
+        if (entry != 0) {
+            return entry >>> 8;
+        }
+        int pieces = Long.bitCount(board);
+        int[] boardMoves = moves[pieces];
+        int count = jumps.getValidJumps(board, boardMoves);
+        int best = pieces;
+        int bestJump = -1;
+        //every move is searched, so every reachable position gets solved
+        for (int i = 0; i < count; i++) {
+            int remaining = solve(jumps.apply(board, boardMoves[i]));
+            if (remaining < best) {
+                best = remaining;
+                bestJump = boardMoves[i];
+            }
+        }
+        put(board, (best << 8) | (bestJump + 1));
+        return best;
+    }
+    
+    private int get(long board) {
+        return dense != null ? dense[(int) board] : sparse.get(board, 0);
+    }
+    
+    private void put(long board, int entry) {
+        if (dense != null) {
+            dense[(int) board] = entry;
+        } else {
+            sparse.put(board, entry);
+        }
+        numberOfSolvedStates++;
+    }
+    
+    /**
+     * Tells if only one piece can be left on a board.
+     * @param board The state id of the board.
+     * @return 
+     */
+    public boolean isSolvable(long board) {
+        return solve(board) == 1;
+    }
+    
+    /**
+     * Returns the move which leaves the lowest number of pieces on a board.
+     * @param board The state id of the board.
+     * @return The index of the jump or -1 if there is no valid move.
+     */
+    public int getBestMove(long board) {
+        solve(board);
+        return (get(board) & 0xFF) - 1;
+    }
+    
+    /**
+     * Returns the number of positions solved so far.
+     * @return 
+     */
+    public int getNumberOfSolvedStates() {
+        return numberOfSolvedStates;
+    }
+    
+    /**
+     * Returns the best move of every position solved so far which has a valid 
+     * move. The policy has the same format of the policies written by 
+     * {@link Util#writePolicy(java.lang.String, java.util.Map, java.lang.String)}.
+     * @return The keys are the binary representations of the states and the 
+     * values are moves like the ones returned by {@link PegGame#getValidMoves2()}.
+     */
+    public Map<String, String> getPolicy() {
+        Map<String, String> policy = new HashMap<>();
+        int n = jumps.getNumberOfPlaces();
+        ActionCodec codec = ActionCodec.forLevels(numberOfLevels);
+        LongIntHashMap.EntryConsumer action = (board, entry) -> {
+            int jump = (entry & 0xFF) - 1;
+            if (jump != -1) {
+                policy.put(PegGame.toBinaryRepresentation(board, n), codec.encode(jump));
+            }
+        };
+        if (dense != null) {
+            for (int board = 0; board < dense.length; board++) {
+                if (dense[board] != 0) {
+                    action.accept(board, dense[board]);
+                }
+            }
+        } else {
+            sparse.forEach(action);
+        }
+        return policy;
+    }
+    
+    /**
+     * Scores a policy against the solver: the rate of the positions solved so 
+     * far, with a valid move, for which the policy's move leaves the lowest 
+     * number of pieces. A missing move counts as a wrong one.
+     * @param policy 
+     * @return 
+     */
+    public double scorePolicy(PegPolicy policy) {
+        int[] result = new int[2]; //optimal moves, positions
+        LongIntHashMap.EntryConsumer action = (board, entry) -> {
+            if ((entry & 0xFF) != 0) {
+                result[1]++;
+                int move = policy.getMove(board);
+                if (move != -1 && jumps.isValid(board, move) 
+                        && solve(jumps.apply(board, move)) == entry >>> 8) {
+                    result[0]++;
+                }
+            }
+        };
+        if (dense != null) {
+            for (int board = 0; board < dense.length; board++) {
+                if (dense[board] != 0) {
+                    action.accept(board, dense[board]);
+                }
+            }
+        } else {
+            //the positions are copied since the scoring may solve new ones
+            LongIntHashMap solved = new LongIntHashMap(sparse.size());
+            sparse.forEach(solved::put);
+            solved.forEach(action);
+        }
+        return result[1] == 0 ? 0 : result[0] / (double) result[1];
+    }
+    
+    public NumberOfLevels getNumberOfLevels() {
+        return numberOfLevels;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        NumberOfLevels numberOfLevels = NumberOfLevels.SIX;
+        
+        System.out.print("Solving...");
+        long startTime = System.currentTimeMillis();
+        PegGameSolver solver = new PegGameSolver(numberOfLevels);
+        solver.solveStartingBoards(1);
+        Map<String, String> policy = solver.getPolicy();
+        long endTime = System.currentTimeMillis();
+        System.out.println(" OK. " + (endTime - startTime) + " ms.");
+        
+        int solvable = 0;
+        long full = (1L << numberOfLevels.getNumberOfPlaces()) - 1;
+        for (int place = 0; place < numberOfLevels.getNumberOfPlaces(); place++) {
+            if (solver.isSolvable(full & ~(1L << place))) {
+                solvable++;
+            }
+        }
+        DecimalFormat decFmt = new DecimalFormat("#0%");
+        double solvableRate = solvable / (double) numberOfLevels.getNumberOfPlaces();
+        String fileName = "peg_game/policy-" + numberOfLevels.number + "levels-solver.txt";
+        String appendix = 
+                "Number of levels: " + numberOfLevels + 
+                "\nSolved positions: " + solver.getNumberOfSolvedStates() + 
+                "\nSolvable starting boards: " + decFmt.format(solvableRate);
+        Util.writePolicy("./src/main/resources/" + fileName, policy, appendix);
+        BinaryPolicy.write(Paths.get("./src/main/resources/" + fileName.replace(".txt", ".bin")), 
+                policy, numberOfLevels);
+        
+        System.out.println("Solved positions: " + solver.getNumberOfSolvedStates());
+        System.out.println("Solvable starting boards: " + decFmt.format(solvableRate));
+    }
+}
@@ -0,0 +1,198 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Model of a peg game learned from the observed transitions. The game is 
+ * deterministic, so each pair of state id and jump has one next state and 
+ * one reward, and the model keeps one transition per pair. The transitions 
+ * are kept in primitive arrays and indexed by a hash of the packed pair, so 
+ * there is no object per transition.
+ * <p>
+ * The model also knows the predecessors of each state, i. e., the 
+ * transitions which lead to it. They are linked lists threaded through the 
+ * transition arrays, so they cost one <code>int</code> per transition.
+ * <p>
+ * The model is thread-safe: an agent can add transitions while a planner 
+ * samples them.
+ * 
+ * @author Alexandre Lima
+ */
+public class PegModel {
+    
+    private final int jumpBits;
+    //transition index by packed pair (see key)
+    private final LongIntHashMap transitions;
+    private long[] states;
+    private int[] jumps;
+    private double[] rewards;
+    private long[] nextStates;
+    private boolean[] terminal;
+    //first predecessor by next state id and the next predecessor of the 
+    //same state by transition index (-1 ends the lists)
+    private final LongIntHashMap firstPredecessors;
+    private int[] nextPredecessors;
+    private int size;
+    private IntConsumer listener;
+    
+    /**
+     * @param numberOfLevels The number of levels of the board.
+     */
+    public PegModel(NumberOfLevels numberOfLevels) {
+        int numberOfJumps = JumpTable.forLevels(numberOfLevels).size();
+        this.jumpBits = Integer.SIZE - Integer.numberOfLeadingZeros(numberOfJumps - 1);
+        if (numberOfLevels.getNumberOfPlaces() + jumpBits > Long.SIZE) {
+            throw new IllegalArgumentException("The board is too big for the model: " + numberOfLevels);
+        }
+        this.transitions = new LongIntHashMap();
+        this.states = new long[16];
+        this.jumps = new int[16];
+        this.rewards = new double[16];
+        this.nextStates = new long[16];
+        this.terminal = new boolean[16];
+        this.firstPredecessors = new LongIntHashMap();
+        this.nextPredecessors = new int[16];
+    }
+    
+    //Packs a pair into a single key: the state bits above the jump bits
+    private long key(long state, int jump) {
+        return (state << jumpBits) | jump;
+    }
+    
+    /**
+     * Adds a transition. A transition of a pair which is already in the model 
+     * replaces it.
+     * @param state     The state id.
+     * @param jump      The jump.
+     * @param reward    The reward of the jump.
+     * @param nextState The state id after the jump.
+     * @param terminal  Tells if the episode ends on the next state.
+     * @return true if the pair is new.
+     */
+    public synchronized boolean add(long state, int jump, double reward, long nextState, boolean terminal) {
+        long key = key(state, jump);
+        int index = transitions.get(key, -1);
+        boolean added = index == -1;
+        if (added) {
+            if (size == states.length) {
+                int capacity = size * 2;
+                states = Arrays.copyOf(states, capacity);
+                jumps = Arrays.copyOf(jumps, capacity);
+                rewards = Arrays.copyOf(rewards, capacity);
+                nextStates = Arrays.copyOf(nextStates, capacity);
+                this.terminal = Arrays.copyOf(this.terminal, capacity);
+                nextPredecessors = Arrays.copyOf(nextPredecessors, capacity);
+            }
+            index = size++;
+            transitions.put(key, index);
+            states[index] = state;
+            jumps[index] = jump;
+            //the game is deterministic, so the next state of a pair never changes
+            nextPredecessors[index] = firstPredecessors.get(nextState, -1);
+            firstPredecessors.put(nextState, index);
+        }
+        rewards[index] = reward;
+        nextStates[index] = nextState;
+        this.terminal[index] = terminal;
+        if (listener != null) {
+            listener.accept(index);
+        }
+        return added;
+    }
+    
+    /**
+     * Returns the index of the transition of a pair.
+     * @param state The state id.
+     * @param jump  The jump.
+     * @return The index or -1 if the pair was not observed.
+     */
+    public synchronized int indexOf(long state, int jump) {
+        return transitions.get(key(state, jump), -1);
+    }
+    
+    /**
+     * Copies transitions drawn uniformly, with replacement.
+     * @param rand          The random number generator.
+     * @param count         The number of transitions.
+     * @param states        Receives the state ids.
+     * @param jumps         Receives the jumps.
+     * @param rewards       Receives the rewards.
+     * @param nextStates    Receives the next state ids.
+     * @param terminal      Receives the terminal flags.
+     * @return The number of transitions copied: zero when the model is empty.
+     */
+    public synchronized int sample(Random rand, int count, long[] states, int[] jumps, 
+            double[] rewards, long[] nextStates, boolean[] terminal) {
+        if (size == 0) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int index = rand.nextInt(size);
+            states[i] = this.states[index];
+            jumps[i] = this.jumps[index];
+            rewards[i] = this.rewards[index];
+            nextStates[i] = this.nextStates[index];
+            terminal[i] = this.terminal[index];
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the first transition which leads to a state.
+     * @param state The state id.
+     * @return The index of the transition or -1 if there is none.
+     */
+    public synchronized int getFirstPredecessor(long state) {
+        return firstPredecessors.get(state, -1);
+    }
+    
+    /**
+     * Returns the next transition which leads to the same state of a 
+     * transition (see {@link #getFirstPredecessor(long)}).
+     * @param index The index of the transition.
+     * @return The index of the next transition or -1 if there is none.
+     */
+    public synchronized int getNextPredecessor(int index) {
+        return nextPredecessors[index];
+    }
+    
+    /**
+     * Sets the listener of the transitions. It is called on the thread which 
+     * adds the transition.
+     * @param listener Receives the index of each transition added or 
+     * replaced, or null.
+     */
+    public synchronized void setListener(IntConsumer listener) {
+        this.listener = listener;
+    }
+    
+    public synchronized long getState(int index) {
+        return states[index];
+    }
+    
+    public synchronized int getJump(int index) {
+        return jumps[index];
+    }
+    
+    public synchronized double getReward(int index) {
+        return rewards[index];
+    }
+    
+    public synchronized long getNextState(int index) {
+        return nextStates[index];
+    }
+    
+    public synchronized boolean isTerminal(int index) {
+        return terminal[index];
+    }
+    
+    /**
+     * Returns the number of transitions of the model.
+     * @return 
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
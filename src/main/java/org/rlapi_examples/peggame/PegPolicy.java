@@ -0,0 +1,80 @@
+package org.rlapi_examples.peggame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Policy of a peg game over the primitive API of {@link PegGame}: it maps 
+ * state ids to jump indexes.
+ * 
+ * @author Alexandre Lima
+ */
+public interface PegPolicy {
+    
+    /**
+     * Returns the move of a state.
+     * @param state The state id (see {@link PegGame#getStateId()}).
+     * @return The index of the jump (see {@link JumpTable}) or -1 if the 
+     * policy has no move for the state.
+     */
+    int getMove(long state);
+    
+    /**
+     * Creates a policy from a map like the ones written by 
+     * {@link Util#writePolicy(java.lang.String, java.util.Map, java.lang.String)}.
+     * The map is converted once, so the returned policy does no parsing.
+     * @param policy            The keys are the binary representations of the 
+     * states and the values are moves like "7 2".
+     * @param numberOfLevels    The number of levels of the board.
+     * @return 
+     */
+    static PegPolicy fromMap(Map<String, String> policy, NumberOfLevels numberOfLevels) {
+        ActionCodec codec = ActionCodec.forLevels(numberOfLevels);
+        LongIntHashMap moves = new LongIntHashMap(policy.size());
+        for (Map.Entry<String, String> e : policy.entrySet()) {
+            moves.put(PegGame.parseBinaryRepresentation(e.getKey()), codec.decode(e.getValue()));
+        }
+        return state -> moves.get(state, -1);
+    }
+    
+    /**
+     * Reads a policy file like the ones written by 
+     * {@link Util#writePolicy(java.lang.String, java.util.Map, java.lang.String)}. 
+     * The moves are decoded straight into the policy, without a string map. 
+     * The reading stops at the first blank line.
+     * @param reader            The reader of the file.
+     * @param numberOfLevels    The number of levels of the board.
+     * @return 
+     * @throws IOException if the file cannot be read or has a state which is 
+     * not a board of the number of levels or a move which is not a jump of 
+     * the board.
+     */
+    static PegPolicy read(BufferedReader reader, NumberOfLevels numberOfLevels) throws IOException {
+        ActionCodec codec = ActionCodec.forLevels(numberOfLevels);
+        int numberOfPlaces = numberOfLevels.getNumberOfPlaces();
+        LongIntHashMap moves = new LongIntHashMap(1024);
+        String line = reader.readLine();
+        while (line != null && !line.trim().equals("")) {
+            int spaceIndex = line.indexOf(" ");
+            long state = 0;
+            int jump = -1;
+            //a state of another board size would be read as a wrong board
+            if (spaceIndex != numberOfPlaces) {
+                throw new IOException("Invalid policy line: " + line);
+            }
+            try {
+                state = PegGame.parseBinaryRepresentation(line, 0, spaceIndex);
+                jump = codec.decode(line.substring(spaceIndex + 1));
+            } catch (RuntimeException ex) {
+                //reported below
+            }
+            if (jump == -1) {
+                throw new IOException("Invalid policy line: " + line);
+            }
+            moves.put(state, jump);
+            line = reader.readLine();
+        }
+        return state -> moves.get(state, -1);
+    }
+}
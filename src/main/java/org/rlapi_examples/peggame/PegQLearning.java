@@ -0,0 +1,587 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Q-learning for a peg game which works on the primitive API of 
+ * {@link PegGame}: states are state ids and actions are jump indexes, so a 
+ * training step allocates no object. The agent follows an e-greedy policy.
+ * <p>
+ * It is a separate loop from rlAPI's {@link org.rlapi.QLearning} on purpose: 
+ * rlAPI's environment and tables speak <code>String</code> states and 
+ * actions, so a {@link QTable} behind them would still build and parse a 
+ * string per state and per move, which is the cost this class removes. The 
+ * two loops share the rewards (see {@link PegGame#performAction(int)}) and 
+ * apply the same update, <code>Q(s, a) += alpha * (r + gamma * max Q(s', a') 
+ * - Q(s, a))</code>, with the same e-greedy exploration; a change to one of 
+ * them must be made to the other.
+ * <p>
+ * Optionally, the states are canonicalized (see {@link BoardSymmetry}): the 
+ * table keeps only the canonical representative of each group of symmetric 
+ * boards, and the jumps are mapped by the same symmetry.
+ * <p>
+ * Optionally, a {@link SolvabilityOracle} ends the hopeless episodes: a move 
+ * to a position proven unsolvable gets the reward of a lost game and ends 
+ * the episode, and episodes which start on such positions are skipped.
+ * <p>
+ * Optionally, a {@link Checkpointer} saves the training periodically, and a 
+ * training can be resumed from its last checkpoint, and 
+ * {@link TrainingMetrics} measure it.
+ * <p>
+ * Optionally, the transitions are kept in a {@link ReplayBuffer} and a 
+ * minibatch of them, drawn uniformly, is replayed after each move, so each 
+ * transition updates the table several times. The buffer is not saved by 
+ * the checkpoints.
+ * <p>
+ * Optionally, the transitions are recorded in a {@link PegModel}, which is 
+ * used for planning (see {@link DynaQLearning}).
+ * 
+ * @author Alexandre Lima
+ */
+public class PegQLearning {
+    
+    //reward of a move to a terminal position with more than one piece
+    private static final double LOST_GAME_REWARD = -100.0;
+    
+    private final PegGame game;
+    private final QTable table;
+    private final JumpTable jumps;
+    private Random rand;
+    private final int[] moves;
+    private final int[] nextMoves;
+    //row of the table read by the greedy choices of the training's thread
+    private final double[] row;
+    //null when the states are not canonicalized
+    private BoardSymmetry symmetry;
+    //null when the hopeless episodes are not ended early
+    private SolvabilityOracle oracle;
+    //number of episodes played, including the ones of a resumed training
+    private long numberOfEpisodes;
+    //null when the training is not saved
+    private Checkpointer checkpointer;
+    private int checkpointInterval;
+    //null when the training is not measured
+    private TrainingMetrics metrics;
+    private long numberOfEpisodesMeasured;
+    //null when the transitions are not replayed
+    private ReplayBuffer replay;
+    private int replayBatchSize;
+    private int[] replayIndexes;
+    private int[] replayMoves;
+    //null when the transitions are not recorded
+    private PegModel model;
+    
+    public PegQLearning(PegGame game, QTable table) {
+        this(game, table, new SavableRandom());
+    }
+    
+    /**
+     * @param game  The environment.
+     * @param table The action-value table. Its number of jumps must be the 
+     * same of the game's jump table.
+     * @param rand  Random number generator of the e-greedy policy.
+     */
+    public PegQLearning(PegGame game, QTable table, Random rand) {
+        if (table.getNumberOfJumps() != game.getJumpTable().size()) {
+            throw new IllegalArgumentException("The table does not match the "
+                    + "board: " + table.getNumberOfJumps() + " jumps");
+        }
+        this.game = game;
+        this.table = table;
+        this.jumps = game.getJumpTable();
+        this.rand = rand;
+        this.moves = new int[jumps.size()];
+        this.nextMoves = new int[jumps.size()];
+        this.row = new double[jumps.size()];
+    }
+    
+    /**
+     * Trains the agent until it has played a number of episodes. A resumed 
+     * training plays only the remaining ones.
+     * @param numberOfEpisodes  The number of episodes of the whole training.
+     * @param alpha             The learning rate.
+     * @param gamma             The discount factor.
+     * @param epsilon           The probability of a random action.
+     * @return The greedy policy learned. The keys are the binary 
+     * representations of the states and the values are moves like the ones 
+     * returned by {@link PegGame#getValidMoves2()}.
+     */
+    public Map<String, String> train(int numberOfEpisodes, double alpha, double gamma, 
+            double epsilon) {
+        runEpisodes(numberOfEpisodes, alpha, gamma, epsilon);
+        return getPolicy();
+    }
+    
+    /**
+     * Trains the agent like {@link #train(int, double, double, double)}, but 
+     * does not build the policy. The policy can then be exported by 
+     * {@link #writePolicy(java.io.Writer)} or used through 
+     * {@link #getGreedyPolicy()}.
+     * @param numberOfEpisodes  The number of episodes of the whole training.
+     * @param alpha             The learning rate.
+     * @param gamma             The discount factor.
+     * @param epsilon           The probability of a random action.
+     */
+    public void runEpisodes(int numberOfEpisodes, double alpha, double gamma, double epsilon) {
+        while (this.numberOfEpisodes < numberOfEpisodes) {
+            runEpisode(alpha, gamma, epsilon);
+            this.numberOfEpisodes++;
+            if (checkpointer != null && this.numberOfEpisodes % checkpointInterval == 0) {
+                try {
+                    checkpointer.save(table, new long[]{this.numberOfEpisodes}, 
+                            (SavableRandom) rand, (SavableRandom) game.getRandom());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs one episode from a reset of the game.
+     * @param alpha     The learning rate.
+     * @param gamma     The discount factor.
+     * @param epsilon   The probability of a random action.
+     */
+    public void runEpisode(double alpha, double gamma, double epsilon) {
+        game.reset();
+        //the episode is timed when it is sampled (see TrainingMetrics)
+        boolean timed = metrics != null && (numberOfEpisodesMeasured++ % TrainingMetrics.TIMING_SAMPLE) == 0;
+        long moveGenerationTime = 0;
+        long oracleTime = 0;
+        long tableTime = 0;
+        int steps = 0;
+        if (oracle != null && oracle.isHopeless(game.getStateId())) {
+            if (metrics != null) {
+                metrics.episodeFinished(0, false);
+            }
+            return;
+        }
+        int count = game.getValidMoves(moves);
+        while (count > 0) {
+            long t0 = timed ? System.nanoTime() : 0;
+            long state = game.getStateId();
+            int jump;
+            if (rand.nextDouble() < epsilon) {
+                jump = moves[rand.nextInt(count)];
+            } else {
+                jump = getGreedyMove(state, moves, count);
+            }
+            long t1 = timed ? System.nanoTime() : 0;
+            double reward = game.performAction(jump);
+            long nextState = game.getStateId();
+            int nextCount = game.getValidMoves(nextMoves);
+            long t2 = timed ? System.nanoTime() : 0;
+            if (nextCount > 0 && oracle != null && oracle.isHopeless(nextState)) {
+                reward = LOST_GAME_REWARD;
+                nextCount = 0;
+            }
+            long t3 = timed && oracle != null ? System.nanoTime() : t2;
+            double target = reward;
+            if (nextCount > 0) {
+                target += gamma * getMaxValue(nextState, nextMoves, nextCount);
+            }
+            update(state, jump, target, alpha);
+            if (model != null) {
+                model.add(state, jump, reward, nextState, nextCount == 0);
+            }
+            if (replay != null) {
+                replay.add(state, jump, reward, nextState, nextCount == 0);
+                replay(alpha, gamma);
+            }
+            System.arraycopy(nextMoves, 0, moves, 0, nextCount);
+            count = nextCount;
+            steps++;
+            if (timed) {
+                tableTime += (t1 - t0) + (System.nanoTime() - t3);
+                moveGenerationTime += t2 - t1;
+                oracleTime += t3 - t2;
+            }
+        }
+        if (metrics != null) {
+            metrics.episodeFinished(steps, game.getNumberOfOccupiedPlaces() == 1);
+            if (timed) {
+                metrics.addTimes(moveGenerationTime, oracleTime, tableTime);
+            }
+        }
+    }
+    
+    //Updates the table with a minibatch of the replay buffer
+    private void replay(double alpha, double gamma) {
+        int count = replay.sample(rand, replayIndexes, replayBatchSize);
+        for (int i = 0; i < count; i++) {
+            int index = replayIndexes[i];
+            double target = replay.getReward(index);
+            if (!replay.isTerminal(index)) {
+                long nextState = replay.getNextState(index);
+                int nextCount = jumps.getValidJumps(nextState, replayMoves);
+                target += gamma * getMaxValue(nextState, replayMoves, nextCount);
+            }
+            update(replay.getState(index), replay.getJump(index), target, alpha);
+        }
+    }
+    
+    /**
+     * Returns the move with the greatest value in a state. It must be called 
+     * by the training's thread; other threads use 
+     * {@link #getGreedyMove(long, int[], int, double[])}.
+     * @param state The state id.
+     * @param moves The valid jumps of the state.
+     * @param count The number of valid jumps.
+     * @return 
+     */
+    public int getGreedyMove(long state, int[] moves, int count) {
+        return getGreedyMove(state, moves, count, row);
+    }
+    
+    /**
+     * Returns the move with the greatest value in a state.
+     * @param state     The state id.
+     * @param moves     The valid jumps of the state.
+     * @param count     The number of valid jumps.
+     * @param values    Buffer for the values of all the jumps of the state.
+     * @return 
+     */
+    public int getGreedyMove(long state, int[] moves, int count, double[] values) {
+        if (symmetry == null) {
+            return moves[getBestIndex(state, BoardSymmetry.IDENTITY, moves, count, values)];
+        }
+        int s = symmetry.getCanonicalSymmetry(state);
+        return moves[getBestIndex(symmetry.apply(s, state), s, moves, count, values)];
+    }
+    
+    /**
+     * Returns the greatest value of the moves of a state. It must be called 
+     * by the training's thread; other threads use 
+     * {@link #getMaxValue(long, int[], int, double[])}.
+     * @param state The state id.
+     * @param moves The valid jumps of the state.
+     * @param count The number of valid jumps.
+     * @return 
+     */
+    public double getMaxValue(long state, int[] moves, int count) {
+        return getMaxValue(state, moves, count, row);
+    }
+    
+    /**
+     * Returns the greatest value of the moves of a state.
+     * @param state     The state id.
+     * @param moves     The valid jumps of the state.
+     * @param count     The number of valid jumps.
+     * @param values    Buffer for the values of all the jumps of the state.
+     * @return 
+     */
+    public double getMaxValue(long state, int[] moves, int count, double[] values) {
+        int s = symmetry == null ? BoardSymmetry.IDENTITY : symmetry.getCanonicalSymmetry(state);
+        long key = symmetry == null ? state : symmetry.apply(s, state);
+        int best = getBestIndex(key, s, moves, count, values);
+        return values[toKeyJump(s, moves[best])];
+    }
+    
+    /**
+     * Returns the value of a pair.
+     * @param state The state id.
+     * @param jump  The jump.
+     * @return 
+     */
+    public double getValue(long state, int jump) {
+        if (symmetry == null) {
+            return table.getValue(state, jump);
+        }
+        int s = symmetry.getCanonicalSymmetry(state);
+        return getValue(symmetry.apply(s, state), s, jump);
+    }
+    
+    /**
+     * Moves the value of a pair towards a target (see {@link QTable#update}).
+     * @param state The state id.
+     * @param jump  The jump.
+     * @param target
+     * @param alpha The learning rate.
+     */
+    public void update(long state, int jump, double target, double alpha) {
+        if (symmetry == null) {
+            table.update(state, jump, target, alpha);
+        } else {
+            int s = symmetry.getCanonicalSymmetry(state);
+            table.update(symmetry.apply(s, state), symmetry.applyToJump(s, jump), target, alpha);
+        }
+    }
+    
+    //Returns the index of the move with the greatest value. The key is the 
+    //state id on the table and the symmetry maps the moves to the key's jumps. 
+    //The key's row is read by a single call, so a thread-safe table is locked 
+    //once and no half-updated row is seen
+    private int getBestIndex(long key, int s, int[] moves, int count, double[] values) {
+        table.getValues(key, values, 0);
+        int best = 0;
+        double bestValue = values[toKeyJump(s, moves[0])];
+        for (int i = 1; i < count; i++) {
+            double value = values[toKeyJump(s, moves[i])];
+            if (value > bestValue) {
+                bestValue = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+    
+    private double getValue(long key, int s, int jump) {
+        return table.getValue(key, toKeyJump(s, jump));
+    }
+    
+    //Maps a jump of a board to the jump of its key on the table
+    private int toKeyJump(int s, int jump) {
+        return s == BoardSymmetry.IDENTITY ? jump : symmetry.applyToJump(s, jump);
+    }
+    
+    /**
+     * Returns the greedy policy for the states stored in the table. When the 
+     * states are canonicalized, the policy has every symmetric image of the 
+     * stored states.
+     * @return The keys are the binary representations of the states and the 
+     * values are moves like the ones returned by {@link PegGame#getValidMoves2()}.
+     */
+    public Map<String, String> getPolicy() {
+        Map<String, String> policy = new HashMap<>();
+        ActionCodec codec = ActionCodec.forLevels(jumps.getNumberOfLevels());
+        forEachGreedyMove((state, jump) -> policy.put(
+                PegGame.toBinaryRepresentation(state, jumps.getNumberOfPlaces()), codec.encode(jump)));
+        return policy;
+    }
+    
+    /**
+     * Writes the greedy policy of {@link #getPolicy()} without building it: 
+     * the table is walked once and each move is written as soon as it is 
+     * found. The lines have the format read by 
+     * {@link Util#readPolicy(java.lang.String)}.
+     * @param writer The writer. It should be buffered.
+     * @throws IOException 
+     */
+    public void writePolicy(Writer writer) throws IOException {
+        ActionCodec codec = ActionCodec.forLevels(jumps.getNumberOfLevels());
+        try {
+            forEachGreedyMove((state, jump) -> {
+                try {
+                    writer.write(PegGame.toBinaryRepresentation(state, jumps.getNumberOfPlaces()));
+                    writer.write(' ');
+                    writer.write(codec.encode(jump));
+                    writer.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    /**
+     * Visits the greedy move of each state stored in the table and, when the 
+     * states are canonicalized, of each distinct symmetric image of them.
+     * @param consumer Receives the state id and the jump.
+     */
+    void forEachGreedyMove(LongIntHashMap.EntryConsumer consumer) {
+        int[] stateMoves = new int[jumps.size()];
+        long[] images = new long[BoardSymmetry.NUMBER_OF_SYMMETRIES];
+        int numberOfImages = symmetry == null ? 1 : BoardSymmetry.NUMBER_OF_SYMMETRIES;
+        table.forEachState(state -> {
+            int count = jumps.getValidJumps(state, stateMoves);
+            if (count > 0) {
+                int jump = getGreedyMove(state, stateMoves, count);
+                images:
+                for (int s = 0; s < numberOfImages; s++) {
+                    long image = s == BoardSymmetry.IDENTITY ? state : symmetry.apply(s, state);
+                    images[s] = image;
+                    //a symmetric board is its own image
+                    for (int i = 0; i < s; i++) {
+                        if (images[i] == image) {
+                            continue images;
+                        }
+                    }
+                    consumer.accept(image, s == BoardSymmetry.IDENTITY ? jump : symmetry.applyToJump(s, jump));
+                }
+            }
+        });
+    }
+    
+    /**
+     * Returns a view of the greedy policy over the table: the moves are 
+     * computed on each call, so no policy is built. It has no move for the 
+     * states which are not in the table, like {@link #getPolicy()}. The view 
+     * may be used by several threads while the table is not updated.
+     * @return 
+     */
+    public PegPolicy getGreedyPolicy() {
+        ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[jumps.size()]);
+        ThreadLocal<double[]> rows = ThreadLocal.withInitial(() -> new double[jumps.size()]);
+        return state -> {
+            int[] stateMoves = buffers.get();
+            long key = symmetry == null ? state : symmetry.canonicalize(state);
+            if (!table.containsState(key)) {
+                return -1;
+            }
+            int count = jumps.getValidJumps(key, stateMoves);
+            if (count == 0) {
+                return -1;
+            }
+            int jump = getGreedyMove(key, stateMoves, count, rows.get());
+            if (symmetry == null) {
+                return jump;
+            }
+            //the same image of forEachGreedyMove, so ties are broken alike
+            int s = 0;
+            while (symmetry.apply(s, key) != state) {
+                s++;
+            }
+            return symmetry.applyToJump(s, jump);
+        };
+    }
+    
+    /**
+     * Tells if the states are canonicalized by the board symmetries.
+     * @return 
+     */
+    public boolean isCanonicalStates() {
+        return symmetry != null;
+    }
+    
+    /**
+     * Enables or disables the canonicalization of the states by the board 
+     * symmetries. It must be set before the training.
+     * @param canonicalStates
+     */
+    public void setCanonicalStates(boolean canonicalStates) {
+        this.symmetry = canonicalStates ? BoardSymmetry.forLevels(jumps.getNumberOfLevels()) : null;
+    }
+    
+    /**
+     * Saves the training periodically. The random number generators of the 
+     * agent and of the game must be {@link SavableRandom}s.
+     * @param checkpointer  The checkpointer or null to disable the checkpoints.
+     * @param interval      The number of episodes between two checkpoints.
+     */
+    public void setCheckpointer(Checkpointer checkpointer, int interval) {
+        if (checkpointer != null && interval <= 0) {
+            throw new IllegalArgumentException("Invalid checkpoint interval: " + interval);
+        }
+        if (checkpointer != null && !(rand instanceof SavableRandom 
+                && game.getRandom() instanceof SavableRandom)) {
+            throw new IllegalArgumentException("The random number generators "
+                    + "cannot be saved: use SavableRandom");
+        }
+        this.checkpointer = checkpointer;
+        this.checkpointInterval = interval;
+    }
+    
+    /**
+     * Resumes a training from a checkpoint: loads the values into the table 
+     * and restores the number of episodes played and the random number 
+     * generators.
+     * @param file The checkpoint file written by a single-threaded training.
+     * @return The number of episodes already played.
+     * @throws IOException if the file cannot be read or does not match the 
+     * training.
+     */
+    public long resume(Path file) throws IOException {
+        Checkpoint checkpoint = Checkpoint.load(file, table);
+        long[] episodes = checkpoint.getEpisodes();
+        SavableRandom[] randoms = checkpoint.getRandoms();
+        if (episodes.length != 1 || randoms.length != 2) {
+            throw new IOException("Not a checkpoint of a single-threaded training: " + file);
+        }
+        this.numberOfEpisodes = episodes[0];
+        this.rand = randoms[0];
+        game.setRandom(randoms[1]);
+        return numberOfEpisodes;
+    }
+    
+    /**
+     * Returns the number of episodes played, including the ones of a resumed 
+     * training.
+     * @return 
+     */
+    public long getNumberOfEpisodes() {
+        return numberOfEpisodes;
+    }
+    
+    Random getRandom() {
+        return rand;
+    }
+    
+    void setRandom(Random rand) {
+        this.rand = rand;
+    }
+    
+    /**
+     * Enables or disables the experience replay.
+     * @param buffer    The buffer of the transitions or null to disable the 
+     * replay. It must be used only by this agent.
+     * @param batchSize The number of transitions replayed after each move.
+     */
+    public void setReplay(ReplayBuffer buffer, int batchSize) {
+        if (buffer != null && batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.replay = buffer;
+        this.replayBatchSize = batchSize;
+        this.replayIndexes = buffer == null ? null : new int[batchSize];
+        this.replayMoves = buffer == null ? null : new int[jumps.size()];
+    }
+    
+    public ReplayBuffer getReplay() {
+        return replay;
+    }
+    
+    public PegModel getModel() {
+        return model;
+    }
+    
+    /**
+     * Sets the model which records the transitions of the episodes.
+     * @param model The model or null to not record the transitions.
+     */
+    public void setModel(PegModel model) {
+        this.model = model;
+    }
+    
+    public TrainingMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets the metrics which count the episodes of this agent. The metrics 
+     * may be shared by several agents.
+     * @param metrics The metrics or null to disable the instrumentation.
+     */
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public SolvabilityOracle getOracle() {
+        return oracle;
+    }
+    
+    /**
+     * Sets the oracle which ends the hopeless episodes. It must be used only 
+     * by this agent, since oracles are not thread-safe.
+     * @param oracle The oracle or null to play every episode until its end.
+     */
+    public void setOracle(SolvabilityOracle oracle) {
+        this.oracle = oracle;
+    }
+    
+    public QTable getTable() {
+        return table;
+    }
+    
+    public PegGame getGame() {
+        return game;
+    }
+}
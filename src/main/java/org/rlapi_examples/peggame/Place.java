@@ -7,18 +7,31 @@ package org.rlapi_examples.peggame;
  */
 public class Place {
     
-    private boolean occupied;
+    private final PegGame game;
+    private final int index;
     private final int level;
     private final int position;
 
-    public Place(int level, int position) {
+    /**
+     * Creates a place. The occupation of the place is kept by the game's board.
+     * @param game      The game which the place belongs to.
+     * @param index     Index of the place on the game's list of places.
+     * @param level     Level of the place.
+     * @param position  Position of the place inside its level.
+     */
+    Place(PegGame game, int index, int level, int position) {
+        this.game = game;
+        this.index = index;
         this.level = level;
         this.position = position;
-        this.occupied = true;
     }
 
     public boolean isOccupied() {
-        return occupied;
+        return game.isOccupied(index);
+    }
+
+    public int getIndex() {
+        return index;
     }
 
     public int getLevel() {
@@ -33,13 +46,13 @@ public class Place {
         if(isOccupied()){
             throw new IllegalArgumentException("The place is already occupied");
         }
-        this.occupied = true;
+        game.setOccupied(index, true);
     }
     
     public void clear(){
         if(!isOccupied()){
             throw new IllegalArgumentException("The place is already empty");
         }
-        this.occupied = false;
+        game.setOccupied(index, false);
     }
 }
\ No newline at end of file
@@ -5,8 +5,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.FileNotFoundException;
 import java.util.List;
-import java.util.Map;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.Timer;
@@ -44,18 +44,16 @@ public class PnlDynamicPegGame extends javax.swing.JPanel{
     /**
      * Starts the autopilot. That means the computer starts playing by itself 
      * against the current board game. The moves are selected according to the 
-     * policy generated by the reinforcement learning algorithm.
+     * policy generated by the reinforcement learning algorithm, which is 
+     * shared by all the panels through the {@link PolicyCache}.
      */
     public void startAutopilot(){
         try{
-            final Map<String, String> policy;
-            if(numberOfLevels.number == 5){
-                policy = Util.readPolicy("peggame/policy-5levels.txt");
+            final PegPolicy policy;
+            try{
+                policy = PolicyCache.get(numberOfLevels);
             }
-            else if(numberOfLevels.number == 6){
-                policy = Util.readPolicy("peggame/policy-6levels.txt");
-            }
-            else{
+            catch(FileNotFoundException ex){
                 throw new IllegalStateException("There is not a policy for the current level");
             }
             final JPanel panel = this;
@@ -63,19 +61,16 @@ public class PnlDynamicPegGame extends javax.swing.JPanel{
                 private PlaceLabel sourcePlace;
                 @Override
                 public void actionPerformed(ActionEvent e) {
-                    String state = game.getBinaryRepresentation();
-                    String action = policy.get(state);
-                    if(action == null)
+                    int jump = policy.getMove(game.getStateId());
+                    if(jump == -1)
                         ((Timer)e.getSource()).stop();
                     else{
                         if(sourcePlace == null){ //selection estep
-                            int indexSpace = action.indexOf(" ");
-                            int numberOfSourcePlace = Integer.parseInt( action.substring(0, indexSpace) ) - 1;
-                            sourcePlace = labels[numberOfSourcePlace];
+                            sourcePlace = labels[game.getJumpTable().getSource(jump)];
                             sourcePlace.setSelected(true);
                         }
                         else{ //move step
-                            game.movePiece(action);
+                            game.movePiece(jump);
                             panel.repaint();
                             sourcePlace.setSelected(false);
                             sourcePlace = null;
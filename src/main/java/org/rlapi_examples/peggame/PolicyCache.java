@@ -0,0 +1,229 @@
+package org.rlapi_examples.peggame;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide cache of decoded policies, keyed by the number of levels of 
+ * the board and the policy source. A source is the name of a policy file on 
+ * the classpath or, when there is no such resource, a file path. A text policy 
+ * is read from its binary version (see {@link BinaryPolicy}), the file with 
+ * the same name and the <code>.bin</code> extension, when there is one, since 
+ * a binary policy is mapped instead of parsed. The policies 
+ * are loaded by a background thread, so they can be preloaded. A policy being 
+ * loaded is held strongly, so concurrent requests share its loading; a loaded 
+ * policy is held by a soft reference: the garbage collector may evict it when 
+ * the memory is short, and it is loaded again on the next request.
+ * 
+ * @author Alexandre Lima
+ */
+public final class PolicyCache {
+    
+    private static final ConcurrentMap<String, Entry> POLICIES = new ConcurrentHashMap<>();
+    //temporary copies of the binary policies which are not files, by URL; 
+    //used by the loader's thread only
+    private static final Map<String, Path> COPIES = new HashMap<>();
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "policy-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    
+    private PolicyCache() {
+    }
+    
+    /**
+     * Returns the source of the policy shipped for a board size.
+     * @param numberOfLevels
+     * @return 
+     */
+    public static String getDefaultSource(NumberOfLevels numberOfLevels) {
+        return "peggame/policy-" + numberOfLevels.number + "levels.txt";
+    }
+    
+    /**
+     * Starts loading the default policy of a board size, if it is not cached 
+     * yet. A missing policy is only reported when it is requested.
+     * @param numberOfLevels
+     */
+    public static void preload(NumberOfLevels numberOfLevels) {
+        getAsync(numberOfLevels, getDefaultSource(numberOfLevels));
+    }
+    
+    /**
+     * Returns the default policy of a board size. See 
+     * {@link #get(NumberOfLevels, String)}.
+     * @param numberOfLevels
+     * @return
+     * @throws FileNotFoundException if there is not a policy for the board size.
+     * @throws IOException 
+     */
+    public static PegPolicy get(NumberOfLevels numberOfLevels) throws IOException {
+        return get(numberOfLevels, getDefaultSource(numberOfLevels));
+    }
+    
+    /**
+     * Returns a policy, waiting for it to be loaded if needed.
+     * @param numberOfLevels    The number of levels of the board.
+     * @param source            The policy source.
+     * @return
+     * @throws FileNotFoundException if the source does not exist.
+     * @throws IOException if the source cannot be read.
+     */
+    public static PegPolicy get(NumberOfLevels numberOfLevels, String source) throws IOException {
+        try {
+            return getAsync(numberOfLevels, source).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex;
+        }
+    }
+    
+    /**
+     * Returns a policy which is loaded in background if it is not cached. 
+     * Concurrent requests share the same loading. A failed loading is not 
+     * cached, so it is tried again on the next request.
+     * @param numberOfLevels    The number of levels of the board.
+     * @param source            The policy source.
+     * @return 
+     */
+    public static CompletableFuture<PegPolicy> getAsync(NumberOfLevels numberOfLevels, String source) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        String key = numberOfLevels.number + ":" + source;
+        AtomicReference<CompletableFuture<PegPolicy>> result = new AtomicReference<>();
+        AtomicBoolean started = new AtomicBoolean();
+        POLICIES.compute(key, (k, cached) -> {
+            if (cached != null) {
+                if (cached.loading != null && !cached.loading.isCompletedExceptionally()) {
+                    result.set(cached.loading);
+                    return cached;
+                }
+                PegPolicy policy = cached.policy == null ? null : cached.policy.get();
+                if (policy != null) {
+                    result.set(CompletableFuture.completedFuture(policy));
+                    return cached;
+                }
+            }
+            result.set(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return read(classLoader, numberOfLevels, source);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, LOADER));
+            started.set(true);
+            return new Entry(result.get(), null);
+        });
+        CompletableFuture<PegPolicy> loading = result.get();
+        if (started.get()) {
+            //outside compute, since the loading may be already done and the 
+            //action would run on this thread
+            loading.thenAccept(policy -> POLICIES.computeIfPresent(key, 
+                    (k, cached) -> cached.loading == loading 
+                            ? new Entry(null, new SoftReference<>(policy)) : cached));
+        }
+        return loading;
+    }
+    
+    /**
+     * Removes all the policies from the cache.
+     */
+    public static void clear() {
+        POLICIES.clear();
+    }
+    
+    private static PegPolicy read(ClassLoader classLoader, NumberOfLevels numberOfLevels, 
+            String source) throws IOException {
+        String binarySource = source.endsWith(".bin") ? source 
+                : source.endsWith(".txt") ? source.substring(0, source.length() - 4) + ".bin" : null;
+        Path binaryFile = binarySource == null ? null : locate(classLoader, binarySource);
+        if (binaryFile != null) {
+            BinaryPolicy policy = BinaryPolicy.load(binaryFile);
+            if (policy.getNumberOfLevels() != numberOfLevels) {
+                throw new IOException("The policy is not of a board with " 
+                        + numberOfLevels.number + " levels: " + binarySource);
+            }
+            return policy;
+        }
+        if (source.endsWith(".bin")) {
+            throw new FileNotFoundException(source);
+        }
+        InputStream stream = classLoader == null ? null : classLoader.getResourceAsStream(source);
+        if (stream == null) {
+            Path file = Paths.get(source);
+            if (!Files.isRegularFile(file)) {
+                throw new FileNotFoundException(source);
+            }
+            stream = Files.newInputStream(file);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+            return PegPolicy.read(reader, numberOfLevels);
+        }
+    }
+    
+    //Returns the file of a source or null if it does not exist. A resource 
+    //which is not a file, like an entry of a jar, is copied into a temporary 
+    //file, so it can be mapped
+    private static Path locate(ClassLoader classLoader, String source) throws IOException {
+        URL url = classLoader == null ? null : classLoader.getResource(source);
+        if (url == null) {
+            Path file = Paths.get(source);
+            return Files.isRegularFile(file) ? file : null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException ex) {
+                throw new IOException("Invalid policy resource: " + url, ex);
+            }
+        }
+        //the resource is copied once, not on every miss of the cache
+        Path file = COPIES.get(url.toString());
+        if (file != null && Files.isRegularFile(file)) {
+            return file;
+        }
+        file = Files.createTempFile("policy", ".bin");
+        file.toFile().deleteOnExit();
+        try (InputStream stream = url.openStream()) {
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        COPIES.put(url.toString(), file);
+        return file;
+    }
+    
+    //A policy being loaded or a loaded one
+    private static final class Entry {
+        
+        //null when the policy is loaded
+        final CompletableFuture<PegPolicy> loading;
+        final SoftReference<PegPolicy> policy;
+        
+        Entry(CompletableFuture<PegPolicy> loading, SoftReference<PegPolicy> policy) {
+            this.loading = loading;
+            this.policy = policy;
+        }
+    }
+}
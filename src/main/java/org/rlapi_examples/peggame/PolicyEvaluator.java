@@ -0,0 +1,171 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates a policy by playing matches in parallel. The matches are split 
+ * into chunks and each chunk plays on its own {@link PegGame} with a random 
+ * number generator seeded from the evaluation seed and the chunk index, so 
+ * the results do not depend on the number of threads. The two are mixed, so 
+ * the chunks of close evaluation seeds do not replay each other's boards.
+ * 
+ * @author Alexandre Lima
+ */
+public class PolicyEvaluator {
+    
+    private static final int CHUNK_SIZE = 1000;
+    
+    private final NumberOfLevels numberOfLevels;
+    private int initialNumberOfEmptyPlaces = 1;
+    
+    public PolicyEvaluator(NumberOfLevels numberOfLevels) {
+        this.numberOfLevels = numberOfLevels;
+    }
+    
+    /**
+     * Plays matches following a policy. Each match starts from a new game 
+     * (see {@link PegGame#startGame()}) and finishes when there is no valid 
+     * move or the policy has no valid move for the current state.
+     * @param policy            The policy.
+     * @param numberOfMatches   The number of matches.
+     * @param seed              Seed of the starting boards.
+     * @return 
+     */
+    public Result evaluate(PegPolicy policy, int numberOfMatches, long seed) {
+        int numberOfChunks = (numberOfMatches + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int numberOfPlaces = JumpTable.forLevels(numberOfLevels).getNumberOfPlaces();
+        return IntStream.range(0, numberOfChunks)
+                .parallel()
+                .mapToObj(chunk -> play(policy, 
+                        Math.min(CHUNK_SIZE, numberOfMatches - chunk * CHUNK_SIZE), 
+                        new Random(getChunkSeed(seed, chunk))))
+                .reduce(Result::merge)
+                .orElseGet(() -> new Result(numberOfPlaces));
+    }
+    
+    //Returns the seed of a chunk's generator: the chunk-th output of a 
+    //SplitMix64 sequence which starts at the evaluation seed
+    static long getChunkSeed(long seed, int chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    private Result play(PegPolicy policy, int numberOfMatches, Random rand) {
+        PegGame game = new PegGame(numberOfLevels, rand);
+        game.setInitialNumberOfEmptyPlaces(initialNumberOfEmptyPlaces);
+        Result result = new Result(game.getPlaces().size());
+        for (int i = 0; i < numberOfMatches; i++) {
+            game.startGame();
+            long start = game.getStateId();
+            while (!game.isEndOfGame()) {
+                int move = policy.getMove(game.getStateId());
+                if (move == -1 || !game.movePiece(move)) {
+                    break;
+                }
+            }
+            result.add(start, game.getNumberOfOccupiedPlaces());
+        }
+        return result;
+    }
+    
+    public int getInitialNumberOfEmptyPlaces() {
+        return initialNumberOfEmptyPlaces;
+    }
+    
+    /**
+     * Sets the number of empty places of the starting boards.
+     * @param number 
+     */
+    public void setInitialNumberOfEmptyPlaces(int number) {
+        this.initialNumberOfEmptyPlaces = number;
+    }
+    
+    /**
+     * Results of an evaluation. A match is solved when it finishes with only 
+     * one piece. The breakdown by starting hole counts each match once for 
+     * each place which was empty when the match started.
+     */
+    public static class Result {
+        
+        private int numberOfMatches;
+        private int solvedMatches;
+        private long remainingPieces;
+        private final int[] matchesByHole;
+        private final int[] solvedMatchesByHole;
+        
+        Result(int numberOfPlaces) {
+            this.matchesByHole = new int[numberOfPlaces];
+            this.solvedMatchesByHole = new int[numberOfPlaces];
+        }
+        
+        void add(long start, int pieces) {
+            boolean solved = pieces == 1;
+            numberOfMatches++;
+            remainingPieces += pieces;
+            if (solved) {
+                solvedMatches++;
+            }
+            for (int place = 0; place < matchesByHole.length; place++) {
+                if ((start & (1L << place)) == 0) {
+                    matchesByHole[place]++;
+                    if (solved) {
+                        solvedMatchesByHole[place]++;
+                    }
+                }
+            }
+        }
+        
+        Result merge(Result other) {
+            numberOfMatches += other.numberOfMatches;
+            solvedMatches += other.solvedMatches;
+            remainingPieces += other.remainingPieces;
+            for (int place = 0; place < matchesByHole.length; place++) {
+                matchesByHole[place] += other.matchesByHole[place];
+                solvedMatchesByHole[place] += other.solvedMatchesByHole[place];
+            }
+            return this;
+        }
+        
+        public int getNumberOfMatches() {
+            return numberOfMatches;
+        }
+        
+        public int getSolvedMatches() {
+            return solvedMatches;
+        }
+        
+        public double getSuccessRate() {
+            return numberOfMatches == 0 ? 0 : solvedMatches / (double) numberOfMatches;
+        }
+        
+        /**
+         * Returns the mean number of pieces on the board at the end of the matches.
+         * @return 
+         */
+        public double getMeanRemainingPieces() {
+            return numberOfMatches == 0 ? 0 : remainingPieces / (double) numberOfMatches;
+        }
+        
+        /**
+         * Returns the number of matches which started with a place empty.
+         * @param place Index of the place.
+         * @return 
+         */
+        public int getNumberOfMatches(int place) {
+            return matchesByHole[place];
+        }
+        
+        /**
+         * Returns the success rate of the matches which started with a place empty.
+         * @param place Index of the place.
+         * @return 
+         */
+        public double getSuccessRate(int place) {
+            return matchesByHole[place] == 0 ? 0 
+                    : solvedMatchesByHole[place] / (double) matchesByHole[place];
+        }
+    }
+}
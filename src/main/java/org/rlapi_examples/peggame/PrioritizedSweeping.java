@@ -0,0 +1,161 @@
+package org.rlapi_examples.peggame;
+
+/**
+ * Prioritized sweeping for a peg game. An agent plays the real episodes and 
+ * records their transitions in a {@link PegModel}. Each recorded transition 
+ * is queued with the magnitude of its Bellman error; after each real episode, 
+ * the transitions with the greatest errors are updated from the model, and 
+ * the transitions which lead to their states are queued in turn. So the 
+ * rewards of the end of the games, +100 and -100, are carried backward 
+ * through the states whose values change the most, instead of through the 
+ * states met by chance.
+ * <p>
+ * When the agent canonicalizes the states, a value update changes every 
+ * symmetric image of the state, so the predecessors of all the images are 
+ * queued.
+ * 
+ * @author Alexandre Lima
+ */
+public class PrioritizedSweeping {
+    
+    private final PegQLearning agent;
+    private final PegModel model;
+    private final IndexedMaxHeap queue = new IndexedMaxHeap();
+    private final int sweepsPerEpisode;
+    private final double threshold;
+    private final JumpTable jumps;
+    //null when the agent does not canonicalize the states
+    private final BoardSymmetry symmetry;
+    private final int[] moves;
+    private final long[] images = new long[BoardSymmetry.NUMBER_OF_SYMMETRIES];
+    //known from the start, since the transitions are queued as they are recorded
+    private final double gamma;
+    private long numberOfSweepUpdates;
+    
+    /**
+     * @param agent             The agent of the real episodes.
+     * @param gamma             The discount factor.
+     * @param sweepsPerEpisode  The maximum number of updates from the model 
+     * after each real episode.
+     * @param threshold         The smallest Bellman error which queues a 
+     * transition.
+     */
+    public PrioritizedSweeping(PegQLearning agent, double gamma, int sweepsPerEpisode, 
+            double threshold) {
+        if (sweepsPerEpisode <= 0) {
+            throw new IllegalArgumentException("Invalid number of sweeps: " + sweepsPerEpisode);
+        }
+        this.agent = agent;
+        this.gamma = gamma;
+        this.sweepsPerEpisode = sweepsPerEpisode;
+        this.threshold = threshold;
+        this.jumps = agent.getGame().getJumpTable();
+        this.symmetry = agent.isCanonicalStates() 
+                ? BoardSymmetry.forLevels(jumps.getNumberOfLevels()) : null;
+        this.moves = new int[jumps.size()];
+        this.model = new PegModel(NumberOfLevels.of(jumps.getNumberOfLevels()));
+        model.setListener(this::enqueue);
+        agent.setModel(model);
+    }
+    
+    /**
+     * Trains the agent until it has played a number of real episodes (see 
+     * {@link PegQLearning#runEpisodes(int, double, double, double)}).
+     * @param numberOfEpisodes  The number of real episodes of the whole training.
+     * @param alpha             The learning rate.
+     * @param epsilon           The probability of a random action.
+     */
+    public void runEpisodes(int numberOfEpisodes, double alpha, double epsilon) {
+        while (agent.getNumberOfEpisodes() < numberOfEpisodes) {
+            agent.runEpisodes((int) agent.getNumberOfEpisodes() + 1, alpha, gamma, epsilon);
+            sweep(alpha);
+        }
+    }
+    
+    /**
+     * Updates the queued transitions with the greatest errors, up to the 
+     * number of sweeps per episode, and queues their predecessors.
+     * @param alpha The learning rate.
+     */
+    public void sweep(double alpha) {
+        for (int i = 0; i < sweepsPerEpisode; i++) {
+            int index = queue.poll();
+            if (index == -1) {
+                return;
+            }
+            long state = model.getState(index);
+            agent.update(state, model.getJump(index), getTarget(index), alpha);
+            numberOfSweepUpdates++;
+            //the value of the state has changed, so the errors of its predecessors too
+            int numberOfImages = 1;
+            images[0] = state;
+            if (symmetry != null) {
+                long key = symmetry.canonicalize(state);
+                numberOfImages = 0;
+                for (int s = 0; s < BoardSymmetry.NUMBER_OF_SYMMETRIES; s++) {
+                    long image = symmetry.apply(s, key);
+                    if (!contains(images, numberOfImages, image)) {
+                        images[numberOfImages++] = image;
+                    }
+                }
+            }
+            for (int j = 0; j < numberOfImages; j++) {
+                for (int p = model.getFirstPredecessor(images[j]); p != -1; p = model.getNextPredecessor(p)) {
+                    enqueue(p);
+                }
+            }
+        }
+    }
+    
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    //Queues a transition if its error reaches the threshold
+    private void enqueue(int index) {
+        double error = Math.abs(getTarget(index) - agent.getValue(model.getState(index), model.getJump(index)));
+        if (error >= threshold) {
+            queue.offer(index, error);
+        }
+    }
+    
+    //Returns the target of the update of a transition
+    private double getTarget(int index) {
+        double target = model.getReward(index);
+        if (!model.isTerminal(index)) {
+            long nextState = model.getNextState(index);
+            int count = jumps.getValidJumps(nextState, moves);
+            target += gamma * agent.getMaxValue(nextState, moves, count);
+        }
+        return target;
+    }
+    
+    public PegModel getModel() {
+        return model;
+    }
+    
+    public PegQLearning getAgent() {
+        return agent;
+    }
+    
+    /**
+     * Returns the number of transitions queued.
+     * @return 
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+    
+    /**
+     * Returns the number of updates from the model done.
+     * @return 
+     */
+    public long getNumberOfSweepUpdates() {
+        return numberOfSweepUpdates;
+    }
+}
@@ -1,69 +1,190 @@
-package org.rlapi_examples.peggame;
-
-import java.io.IOException;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Map;
-import org.rlapi.EGreedyPolicy;
-import org.rlapi.Policy;
-import org.rlapi.QLearning;
-import org.rlapi.TableBuilderInMemory;
-
-/**
- * QLearning agent for a peg game.
- * @author Alexandre Lima
- */
-public class QLearningAgent {
-    public static void main(String[] args) throws IOException {
-        NumberOfLevels numberOfLevels = NumberOfLevels.SIX;
-        int numberOfIterations = 2_500_000;
-        double alpha = 0.8;
-        double gamma = 0.9;
-        double epsilon = 0.20;
-        
-        PegGame game = new PegGame(numberOfLevels);
-        QLearning agent = new QLearning(game, new TableBuilderInMemory());
-        Policy eGreedyPolicy = new EGreedyPolicy(epsilon, game, agent.getActionValueTable());
-        
-        System.out.print("Training agent...");
-        long startTime = System.currentTimeMillis();
-        
-        game.setInitialNumberOfEmptyPlaces(1);
-        Map<String, String> policy = agent.train(numberOfIterations, alpha, gamma, eGreedyPolicy);
-        long endTime = System.currentTimeMillis();
-        long trainningTime = (endTime - startTime) / 1000;
-        System.out.println(" OK. " + trainningTime + " seconds.");
-        
-        System.out.print("Running agent...");
-        game.setInitialNumberOfEmptyPlaces(1);
-        int numberOfMatches = 100000;
-        int solvedMatches = 0;
-        for(int i = 1; i  <= numberOfMatches; i++){
-            game.startGame();
-            while(!game.isEndOfGame()){
-                String action = policy.get(game.getCurrentState());
-                game.movePiece(action);
-            }
-            if(game.getNumberOfOccupiedPlaces() == 1)
-                solvedMatches++;
-        }
-        double successRate = solvedMatches / (double)numberOfMatches;
-        System.out.println("OK!");
-        
-        SimpleDateFormat dateFmt = new SimpleDateFormat("yyyyMMdd_HHmmss");
-        DecimalFormat decFmt = new DecimalFormat("#0%");
-        String fileName = 
-                "peg_game/policy-"+ numberOfLevels.number +"levels-"+ 
-                dateFmt.format(new Date()) +".txt";
-        String appendix = 
-                "Number of levels: " + numberOfLevels + 
-                "\nNumber of episodes: " + numberOfIterations + 
-                "\nNumber of matches: " + numberOfMatches +
-                "\nRate of success: " + decFmt.format(successRate);
-        Util.writePolicy("./src/main/resources/" + fileName, policy, appendix);
-        
-        System.out.println("Solved matches: " + solvedMatches);
-        System.out.println("Success rate: " + decFmt.format(successRate));
-    }
-}
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import javax.management.JMException;
+import org.rlapi.EGreedyPolicy;
+import org.rlapi.Policy;
+import org.rlapi.QLearning;
+import org.rlapi.TableBuilderInMemory;
+
+/**
+ * QLearning agent for a peg game.
+ * <p>
+ * The training with the primitive table is saved periodically to a checkpoint 
+ * file. Run with <code>--resume &lt;file&gt;</code> to continue a training 
+ * from its checkpoint; the settings must be the same of the saved training.
+ * @author Alexandre Lima
+ */
+public class QLearningAgent {
+    public static void main(String[] args) throws IOException, InterruptedException, JMException {
+        NumberOfLevels numberOfLevels = NumberOfLevels.SIX;
+        int numberOfIterations = 2_500_000;
+        double alpha = 0.8;
+        double gamma = 0.9;
+        double epsilon = 0.20;
+        //true: the primitive loop (PegQLearning) and tables; false: rlAPI's 
+        //QLearning and in-memory table, the reference of the primitive loop
+        boolean usePrimitiveTable = true;
+        //number of training threads of the primitive table (1: single thread)
+        int numberOfWorkers = Runtime.getRuntime().availableProcessors();
+        //keeps one table entry per group of symmetric boards (primitive table only)
+        boolean canonicalStates = true;
+        //ends the episodes on positions proven unsolvable (0: disabled)
+        int oracleNodeLimit = 0;
+        //memory budget of a dense table, which has a value for every board 
+        //(primitive table only)
+        long denseTableBudget = 256L << 20;
+        //transitions replayed after each move (primitive table only) (0: disabled)
+        int replayBatchSize = 0;
+        int replayCapacity = 1_000_000;
+        //Dyna-Q planning updates after each episode (primitive table and 
+        //single thread only) (0: disabled)
+        int planningSteps = 0;
+        //prioritized sweeping updates after each episode, which replace the 
+        //Dyna-Q planning (primitive table and single thread only) (0: disabled)
+        int sweepsPerEpisode = 0;
+        //smallest Bellman error which queues a transition for the sweeping
+        double sweepThreshold = 1e-3;
+        //episodes between two checkpoints of the primitive table (0: disabled)
+        int checkpointInterval = 100_000;
+        Path checkpointFile = Paths.get("peg_game-checkpoint-" + numberOfLevels.number + "levels.bin");
+        //seconds between the log lines of the training metrics (0: disabled)
+        int metricsPeriod = 10;
+        Path resumeFile = null;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--resume") && i + 1 < args.length)
+                resumeFile = Paths.get(args[++i]);
+            else
+                throw new IllegalArgumentException("Usage: QLearningAgent [--resume <checkpoint file>]");
+        }
+        Checkpointer checkpointer = checkpointInterval > 0 
+                ? new Checkpointer(checkpointFile, numberOfLevels) : null;
+        
+        PegGame game = new PegGame(numberOfLevels);
+        
+        System.out.print("Training agent...");
+        long startTime = System.currentTimeMillis();
+        
+        game.setInitialNumberOfEmptyPlaces(1);
+        //primitive table: the policy is streamed from the agent's table
+        PegQLearning primitiveAgent = null;
+        Map<String, String> policy = null;
+        TrainingMetrics metrics = null;
+        if(usePrimitiveTable && numberOfWorkers > 1){
+            ParallelPegQLearning agent = new ParallelPegQLearning(numberOfLevels, 
+                    QTable.createThreadSafe(numberOfLevels, denseTableBudget, 64 * numberOfWorkers));
+            agent.setCanonicalStates(canonicalStates);
+            agent.setOracleNodeLimit(oracleNodeLimit);
+            if(replayBatchSize > 0)
+                agent.setReplay(replayCapacity, replayBatchSize);
+            for(int i = 0; i < numberOfWorkers; i++){
+                //the episodes are split evenly among the workers
+                int episodes = numberOfIterations / numberOfWorkers 
+                        + (i < numberOfIterations % numberOfWorkers ? 1 : 0);
+                agent.addWorker(episodes, EpsilonSchedule.constant(epsilon));
+            }
+            agent.setCheckpointer(checkpointer, checkpointInterval);
+            if(resumeFile != null)
+                System.out.print(" resuming after " + agent.resume(resumeFile) + " episodes...");
+            metrics = startMetrics(agent.getTable(), metricsPeriod);
+            agent.setMetrics(metrics);
+            agent.runWorkers(alpha, gamma);
+            primitiveAgent = agent.getAgent();
+        }
+        else if(usePrimitiveTable){
+            //the planner updates the table from its own thread
+            QTable table = planningSteps > 0 && sweepsPerEpisode == 0 
+                    ? QTable.createThreadSafe(numberOfLevels, denseTableBudget, 64) 
+                    : QTable.create(numberOfLevels, denseTableBudget);
+            PegQLearning agent = new PegQLearning(game, table);
+            agent.setCanonicalStates(canonicalStates);
+            if(oracleNodeLimit > 0)
+                agent.setOracle(new SolvabilityOracle(numberOfLevels, oracleNodeLimit));
+            if(replayBatchSize > 0)
+                agent.setReplay(new ReplayBuffer(replayCapacity), replayBatchSize);
+            agent.setCheckpointer(checkpointer, checkpointInterval);
+            if(resumeFile != null)
+                System.out.print(" resuming after " + agent.resume(resumeFile) + " episodes...");
+            metrics = startMetrics(agent.getTable(), metricsPeriod);
+            agent.setMetrics(metrics);
+            if(sweepsPerEpisode > 0)
+                new PrioritizedSweeping(agent, gamma, sweepsPerEpisode, sweepThreshold).runEpisodes(
+                        numberOfIterations, alpha, epsilon);
+            else if(planningSteps > 0)
+                new DynaQLearning(agent, planningSteps).runEpisodes(numberOfIterations, alpha, gamma, epsilon);
+            else
+                agent.runEpisodes(numberOfIterations, alpha, gamma, epsilon);
+            primitiveAgent = agent;
+        }
+        else{
+            QLearning agent = new QLearning(game, new TableBuilderInMemory());
+            Policy eGreedyPolicy = new EGreedyPolicy(epsilon, game, agent.getActionValueTable());
+            policy = agent.train(numberOfIterations, alpha, gamma, eGreedyPolicy);
+        }
+        if(checkpointer != null)
+            checkpointer.close();
+        if(metrics != null){
+            metrics.sample();
+            System.err.println(metrics.format());
+            metrics.close();
+        }
+        long endTime = System.currentTimeMillis();
+        long trainningTime = (endTime - startTime) / 1000;
+        System.out.println(" OK. " + trainningTime + " seconds.");
+        
+        System.out.print("Running agent...");
+        int numberOfMatches = 100000;
+        PolicyEvaluator evaluator = new PolicyEvaluator(numberOfLevels);
+        evaluator.setInitialNumberOfEmptyPlaces(1);
+        PegPolicy pegPolicy = primitiveAgent != null ? primitiveAgent.getGreedyPolicy() 
+                : PegPolicy.fromMap(policy, numberOfLevels);
+        PolicyEvaluator.Result result = evaluator.evaluate(pegPolicy, numberOfMatches, startTime);
+        int solvedMatches = result.getSolvedMatches();
+        double successRate = result.getSuccessRate();
+        System.out.println("OK!");
+        
+        SimpleDateFormat dateFmt = new SimpleDateFormat("yyyyMMdd_HHmmss");
+        DecimalFormat decFmt = new DecimalFormat("#0%");
+        String fileName = 
+                "peg_game/policy-"+ numberOfLevels.number +"levels-"+ 
+                dateFmt.format(new Date()) +".txt";
+        String appendix = 
+                "Number of levels: " + numberOfLevels + 
+                "\nNumber of episodes: " + numberOfIterations + 
+                "\nNumber of matches: " + numberOfMatches +
+                "\nRate of success: " + decFmt.format(successRate);
+        Path binaryFile = Paths.get("./src/main/resources/" + fileName.replace(".txt", ".bin"));
+        if(primitiveAgent != null){
+            Util.writePolicy("./src/main/resources/" + fileName, primitiveAgent, appendix);
+            BinaryPolicy.write(binaryFile, primitiveAgent);
+        }
+        else{
+            Util.writePolicy("./src/main/resources/" + fileName, policy, appendix);
+            BinaryPolicy.write(binaryFile, policy, numberOfLevels);
+        }
+        
+        System.out.println("Solved matches: " + solvedMatches);
+        System.out.println("Success rate: " + decFmt.format(successRate));
+        System.out.println("Mean remaining pieces: " + result.getMeanRemainingPieces());
+        for(int place = 0; place < game.getPlaces().size(); place++){
+            System.out.println("Success rate with place " + (place + 1) + " empty: " 
+                    + decFmt.format(result.getSuccessRate(place)));
+        }
+    }
+    
+    //Registers the metrics of a training and logs them on the standard error
+    private static TrainingMetrics startMetrics(QTable table, int period) throws JMException{
+        if(period <= 0)
+            return null;
+        TrainingMetrics metrics = new TrainingMetrics(table);
+        metrics.register();
+        metrics.startLogging(period, System.err);
+        return metrics;
+    }
+}
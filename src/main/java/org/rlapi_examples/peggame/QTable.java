@@ -0,0 +1,101 @@
+package org.rlapi_examples.peggame;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Action-value table of a peg game. The states are state ids (see 
+ * {@link PegGame#getStateId()}) and the actions are indexes of the board's 
+ * jump table (see {@link JumpTable}). The value of a pair which was never 
+ * set is zero.
+ * 
+ * @author Alexandre Lima
+ */
+public interface QTable {
+    
+    /**
+     * Returns the number of jumps of the board, i. e., the number of actions 
+     * of each state.
+     * @return 
+     */
+    int getNumberOfJumps();
+    
+    double getValue(long state, int jump);
+    
+    void setValue(long state, int jump, double value);
+    
+    /**
+     * Tells if the table has values for a state.
+     * @param state
+     * @return 
+     */
+    boolean containsState(long state);
+    
+    /**
+     * Copies the values of all the jumps of a state.
+     * @param state
+     * @param values    Array which receives the values.
+     * @param offset    Position of the first value on <code>values</code>.
+     */
+    void getValues(long state, double[] values, int offset);
+    
+    /**
+     * Sets the values of all the jumps of a state.
+     * @param state
+     * @param values    Array with the values.
+     * @param offset    Position of the first value on <code>values</code>.
+     */
+    void setValues(long state, double[] values, int offset);
+    
+    /**
+     * Moves the value of a pair towards a target: 
+     * <code>Q(s, a) = Q(s, a) + alpha * (target - Q(s, a))</code>.
+     * @param state
+     * @param jump
+     * @param target
+     * @param alpha     The learning rate.
+     */
+    void update(long state, int jump, double target, double alpha);
+    
+    /**
+     * Returns the number of states stored in the table.
+     * @return 
+     */
+    int getNumberOfStates();
+    
+    /**
+     * Performs an action for each state stored in the table.
+     * @param action 
+     */
+    void forEachState(LongConsumer action);
+    
+    /**
+     * Creates a single-threaded table for a board: a {@link DenseQTable} when 
+     * it fits the memory budget, since its lookups do no hashing, or a 
+     * {@link HashQTable} otherwise.
+     * @param numberOfLevels    The number of levels of the board.
+     * @param memoryBudget      The maximum number of bytes of a dense table.
+     * @return 
+     */
+    static QTable create(NumberOfLevels numberOfLevels, long memoryBudget) {
+        if (DenseQTable.getMemorySize(numberOfLevels) <= memoryBudget) {
+            return new DenseQTable(numberOfLevels);
+        }
+        return new HashQTable(numberOfLevels);
+    }
+    
+    /**
+     * Creates a thread-safe table for a board: a {@link ConcurrentDenseQTable} 
+     * when it fits the memory budget or a {@link StripedQTable} otherwise.
+     * @param numberOfLevels    The number of levels of the board.
+     * @param memoryBudget      The maximum number of bytes of a dense table.
+     * @param numberOfStripes   The number of stripes of a striped table.
+     * @return 
+     */
+    static QTable createThreadSafe(NumberOfLevels numberOfLevels, long memoryBudget, 
+            int numberOfStripes) {
+        if (DenseQTable.getMemorySize(numberOfLevels) <= memoryBudget) {
+            return new ConcurrentDenseQTable(numberOfLevels);
+        }
+        return new StripedQTable(numberOfLevels, numberOfStripes);
+    }
+}
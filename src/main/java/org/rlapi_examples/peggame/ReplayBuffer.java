@@ -0,0 +1,134 @@
+package org.rlapi_examples.peggame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Fixed-capacity ring of transitions for experience replay. A transition is a 
+ * state id, a jump, a reward, the next state id and a flag which tells if the 
+ * next state is terminal. The transitions are kept off the heap, in a direct 
+ * {@link ByteBuffer}, so a large buffer adds nothing to the garbage 
+ * collector's work. When the buffer is full, a new transition replaces the 
+ * oldest one.
+ * <p>
+ * The buffer is read by index: {@link #sample(Random, int[], int)} draws 
+ * indexes uniformly, and the fields of the transition are read by the 
+ * getters, so no object is allocated.
+ * 
+ * @author Alexandre Lima
+ */
+public class ReplayBuffer {
+    
+    //record layout: state, next state, reward, jump, terminal flag
+    private static final int STATE = 0;
+    private static final int NEXT_STATE = 8;
+    private static final int REWARD = 16;
+    private static final int JUMP = 24;
+    private static final int TERMINAL = 28;
+    private static final int RECORD_SIZE = 32;
+    
+    private final ByteBuffer buffer;
+    private final int capacity;
+    //index of the next transition written
+    private int next;
+    private int size;
+    
+    /**
+     * @param capacity The maximum number of transitions.
+     */
+    public ReplayBuffer(int capacity) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+    
+    /**
+     * Adds a transition, replacing the oldest one if the buffer is full.
+     * @param state     The state id.
+     * @param jump      The jump.
+     * @param reward    The reward of the jump.
+     * @param nextState The state id after the jump.
+     * @param terminal  Tells if the episode ends on the next state.
+     */
+    public void add(long state, int jump, double reward, long nextState, boolean terminal) {
+        int offset = next * RECORD_SIZE;
+        buffer.putLong(offset + STATE, state);
+        buffer.putLong(offset + NEXT_STATE, nextState);
+        buffer.putDouble(offset + REWARD, reward);
+        buffer.putInt(offset + JUMP, jump);
+        buffer.putInt(offset + TERMINAL, terminal ? 1 : 0);
+        next = next + 1 == capacity ? 0 : next + 1;
+        if (size < capacity) {
+            size++;
+        }
+    }
+    
+    /**
+     * Draws indexes of transitions uniformly, with replacement.
+     * @param rand      The random number generator.
+     * @param indexes   Receives the indexes.
+     * @param count     The number of indexes.
+     * @return The number of indexes drawn: zero when the buffer is empty.
+     */
+    public int sample(Random rand, int[] indexes, int count) {
+        if (size == 0) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            indexes[i] = rand.nextInt(size);
+        }
+        return count;
+    }
+    
+    public long getState(int index) {
+        return buffer.getLong(offset(index) + STATE);
+    }
+    
+    public int getJump(int index) {
+        return buffer.getInt(offset(index) + JUMP);
+    }
+    
+    public double getReward(int index) {
+        return buffer.getDouble(offset(index) + REWARD);
+    }
+    
+    public long getNextState(int index) {
+        return buffer.getLong(offset(index) + NEXT_STATE);
+    }
+    
+    public boolean isTerminal(int index) {
+        return buffer.getInt(offset(index) + TERMINAL) != 0;
+    }
+    
+    //The index 0 is the oldest transition
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int i = size < capacity ? index : (next + index) % capacity;
+        return i * RECORD_SIZE;
+    }
+    
+    /**
+     * Returns the number of transitions in the buffer.
+     * @return 
+     */
+    public int size() {
+        return size;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Removes all the transitions.
+     */
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+}
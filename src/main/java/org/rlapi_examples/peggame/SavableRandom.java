@@ -0,0 +1,69 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+
+/**
+ * Random number generator whose state can be saved into a checkpoint. It 
+ * draws the same numbers of a {@link Random} created with the same seed, 
+ * but its 48-bit state is readable, so a checkpoint writes it as a plain 
+ * <code>long</code> instead of a serialized object. The state does not 
+ * include the second value computed by {@link #nextGaussian()}.
+ * <p>
+ * Unlike {@link Random}, a generator is not thread-safe.
+ * 
+ * @author Alexandre Lima
+ */
+public class SavableRandom extends Random {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    
+    //assigned by setSeed, which is called by Random's constructor
+    private long state;
+    
+    public SavableRandom() {
+        super();
+    }
+    
+    public SavableRandom(long seed) {
+        super(seed);
+    }
+    
+    /**
+     * Creates a generator from a state returned by {@link #getState()}.
+     * @param state 
+     * @return 
+     * @throws IllegalArgumentException if the state has more than 48 bits.
+     */
+    static SavableRandom withState(long state) {
+        if ((state & ~MASK) != 0) {
+            throw new IllegalArgumentException("Invalid state: " + state);
+        }
+        SavableRandom rand = new SavableRandom(0);
+        rand.state = state;
+        return rand;
+    }
+    
+    /**
+     * Returns the 48-bit state of the generator.
+     * @return 
+     */
+    long getState() {
+        return state;
+    }
+    
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+    
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
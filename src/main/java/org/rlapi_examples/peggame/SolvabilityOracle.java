@@ -0,0 +1,177 @@
+package org.rlapi_examples.peggame;
+
+/**
+ * Tells if a position of the peg game can still be solved, i. e., if only one 
+ * piece can be left on the board. The answers come from a bounded 
+ * depth-first search and are kept in a transposition table, which is filled 
+ * lazily along the queries. The positions are canonicalized (see 
+ * {@link BoardSymmetry}), so a position proven once is known for all its 
+ * symmetric images. A search which exceeds its budget of visited positions 
+ * gives up and the answer is {@link #UNKNOWN}; the positions proven by the 
+ * search are kept anyway.
+ * <p>
+ * A query which gave up is not searched again until the table has grown 
+ * enough to decide it, i. e., until the number of proven positions has 
+ * doubled, and at least by the node limit, since the give-up. So the oracle 
+ * stays cheap on the positions it cannot prove yet.
+ * <p>
+ * The table of boards up to {@value PegGameSolver#MAX_PLACES_OF_DENSE_TABLE} 
+ * places takes 2 bits per state id (see {@link PegGame#getStateId()}); the 
+ * table of greater boards is a hash. An oracle is not thread-safe.
+ * 
+ * @author Alexandre Lima
+ */
+public class SolvabilityOracle {
+    
+    public static final int UNKNOWN = -1;
+    public static final int UNSOLVABLE = 0;
+    public static final int SOLVABLE = 1;
+    
+    private final JumpTable jumps;
+    private final int nodeLimit;
+    private final BoardSymmetry symmetry;
+    //dense table: bit set in 'known' when the position is proven, and then 
+    //the bit in 'solvable' gives the answer
+    private final long[] known;
+    private final long[] solvable;
+    //sparse table: SOLVABLE or UNSOLVABLE by state id
+    private final LongIntHashMap sparse;
+    private int numberOfProvenStates;
+    //canonical boards of the queries which gave up, since the table had 
+    //'provenStatesAtGiveUps' positions
+    private final LongIntHashMap givenUp = new LongIntHashMap();
+    private int provenStatesAtGiveUps;
+    private int nodes;
+    private final int[][] moves;
+    
+    /**
+     * @param numberOfLevels    The number of levels of the board.
+     * @param nodeLimit         The greatest number of positions visited by a 
+     * query.
+     */
+    public SolvabilityOracle(NumberOfLevels numberOfLevels, int nodeLimit) {
+        this.jumps = JumpTable.forLevels(numberOfLevels);
+        this.nodeLimit = nodeLimit;
+        this.symmetry = BoardSymmetry.forLevels(numberOfLevels);
+        if (jumps.getNumberOfPlaces() <= PegGameSolver.MAX_PLACES_OF_DENSE_TABLE) {
+            int words = Math.max(1, (1 << jumps.getNumberOfPlaces()) / Long.SIZE);
+            this.known = new long[words];
+            this.solvable = new long[words];
+            this.sparse = null;
+        } else {
+            this.known = null;
+            this.solvable = null;
+            this.sparse = new LongIntHashMap();
+        }
+        this.moves = new int[jumps.getNumberOfPlaces() + 1][jumps.size()];
+    }
+    
+    /**
+     * Tells if a position can still be solved.
+     * @param board The state id of the position.
+     * @return {@link #SOLVABLE}, {@link #UNSOLVABLE} or {@link #UNKNOWN} when 
+     * the search exceeds the node limit, now or in a recent query of the 
+     * board or of one of its symmetric images.
+     */
+    public int getSolvability(long board) {
+        nodes = 0;
+        long key = symmetry.canonicalize(board);
+        int answer = get(key);
+        if (answer != UNKNOWN) {
+            return answer;
+        }
+        if (givenUp.size() > 0 && numberOfProvenStates - provenStatesAtGiveUps 
+                >= Math.max(provenStatesAtGiveUps, nodeLimit)) {
+            //the table may decide the queries which gave up now
+            givenUp.clear();
+        }
+        if (givenUp.containsKey(key)) {
+            return UNKNOWN;
+        }
+        answer = search(key);
+        if (answer == UNKNOWN) {
+            if (givenUp.size() == 0) {
+                provenStatesAtGiveUps = numberOfProvenStates;
+            }
+            givenUp.put(key, UNKNOWN);
+        }
+        return answer;
+    }
+    
+    /**
+     * Returns the number of positions visited by the last query.
+     * @return 
+     */
+    int getNumberOfNodes() {
+        return nodes;
+    }
+    
+    /**
+     * Tells if a position is proven unsolvable. Unknown positions are not 
+     * hopeless.
+     * @param board The state id of the position.
+     * @return 
+     */
+    public boolean isHopeless(long board) {
+        return getSolvability(board) == UNSOLVABLE;
+    }
+    
+    //Searches a canonical board
+    private int search(long key) {
+        int pieces = Long.bitCount(key);
+        if (pieces == 1) {
+            return SOLVABLE;
+        }
+        int answer = get(key);
+        if (answer != UNKNOWN) {
+            return answer;
+        }
+        if (++nodes > nodeLimit) {
+            return UNKNOWN;
+        }
+        int[] boardMoves = moves[pieces];
+        int count = jumps.getValidJumps(key, boardMoves);
+        boolean unknown = false;
+        for (int i = 0; i < count; i++) {
+            int childAnswer = search(symmetry.canonicalize(jumps.apply(key, boardMoves[i])));
+            if (childAnswer == SOLVABLE) {
+                put(key, SOLVABLE);
+                return SOLVABLE;
+            }
+            if (childAnswer == UNKNOWN) {
+                unknown = true;
+            }
+        }
+        if (unknown) {
+            return UNKNOWN;
+        }
+        put(key, UNSOLVABLE);
+        return UNSOLVABLE;
+    }
+    
+    private int get(long key) {
+        if (known != null) {
+            int word = (int) (key >>> 6);
+            long bit = 1L << key;
+            if ((known[word] & bit) == 0) {
+                return UNKNOWN;
+            }
+            return (solvable[word] & bit) != 0 ? SOLVABLE : UNSOLVABLE;
+        }
+        return sparse.get(key, UNKNOWN);
+    }
+    
+    private void put(long key, int answer) {
+        if (known != null) {
+            int word = (int) (key >>> 6);
+            long bit = 1L << key;
+            known[word] |= bit;
+            if (answer == SOLVABLE) {
+                solvable[word] |= bit;
+            }
+        } else {
+            sparse.put(key, answer);
+        }
+        numberOfProvenStates++;
+    }
+}
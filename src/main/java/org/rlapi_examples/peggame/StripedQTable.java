@@ -0,0 +1,142 @@
+package org.rlapi_examples.peggame;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe action-value table. The states are spread over stripes, each 
+ * one a {@link HashQTable} guarded by its own lock, so threads which touch 
+ * different stripes do not wait for each other.
+ * 
+ * @author Alexandre Lima
+ */
+public class StripedQTable implements QTable {
+    
+    private final int numberOfJumps;
+    private final HashQTable[] stripes;
+    private final int mask;
+    
+    /**
+     * @param numberOfLevels    The number of levels of the board.
+     * @param numberOfStripes   The number of stripes. It is rounded up to a 
+     * power of two.
+     */
+    public StripedQTable(NumberOfLevels numberOfLevels, int numberOfStripes) {
+        this(JumpTable.forLevels(numberOfLevels).size(), numberOfStripes);
+    }
+    
+    /**
+     * @param numberOfJumps     The number of jumps of the board.
+     * @param numberOfStripes   The number of stripes. It is rounded up to a 
+     * power of two.
+     */
+    public StripedQTable(int numberOfJumps, int numberOfStripes) {
+        int n = 1;
+        while (n < numberOfStripes) {
+            n <<= 1;
+        }
+        this.numberOfJumps = numberOfJumps;
+        this.stripes = new HashQTable[n];
+        this.mask = n - 1;
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new HashQTable(numberOfJumps);
+        }
+    }
+    
+    private HashQTable getStripe(long state) {
+        long h = state * 0xC2B2AE3D27D4EB4FL;
+        return stripes[(int) (h >>> 40) & mask];
+    }
+    
+    @Override
+    public int getNumberOfJumps() {
+        return numberOfJumps;
+    }
+    
+    @Override
+    public double getValue(long state, int jump) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            return stripe.getValue(state, jump);
+        }
+    }
+    
+    @Override
+    public void setValue(long state, int jump, double value) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            stripe.setValue(state, jump, value);
+        }
+    }
+    
+    @Override
+    public boolean containsState(long state) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            return stripe.containsState(state);
+        }
+    }
+    
+    @Override
+    public void getValues(long state, double[] values, int offset) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            stripe.getValues(state, values, offset);
+        }
+    }
+    
+    @Override
+    public void setValues(long state, double[] values, int offset) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            stripe.setValues(state, values, offset);
+        }
+    }
+    
+    @Override
+    public void update(long state, int jump, double target, double alpha) {
+        HashQTable stripe = getStripe(state);
+        synchronized (stripe) {
+            stripe.update(state, jump, target, alpha);
+        }
+    }
+    
+    @Override
+    public int getNumberOfStates() {
+        int n = 0;
+        for (HashQTable stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.getNumberOfStates();
+            }
+        }
+        return n;
+    }
+    
+    int getNumberOfStripes() {
+        return stripes.length;
+    }
+    
+    /**
+     * Performs an action for each state of a stripe while holding its lock.
+     * @param stripe    The index of the stripe.
+     * @param action 
+     */
+    void forEachState(int stripe, LongConsumer action) {
+        synchronized (stripes[stripe]) {
+            stripes[stripe].forEachState(action);
+        }
+    }
+    
+    /**
+     * Performs an action for each state stored in the table. Each stripe is 
+     * locked while its states are visited.
+     * @param action 
+     */
+    @Override
+    public void forEachState(LongConsumer action) {
+        for (HashQTable stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEachState(action);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Copy-on-write snapshot of an action-value table which is not thread-safe. 
+ * The rows of the table (or the states of a {@link DenseQTable}) are split 
+ * in chunks of {@value #CHUNK_SIZE} and the table calls 
+ * {@link #beforeWrite(int)} before it changes a value: the chunk of the value 
+ * is copied if it was not yet, and one more chunk is copied to move the 
+ * snapshot on. So the snapshot holds the values of the moment it was started, 
+ * but the thread which uses the table copies at most two chunks at each 
+ * write instead of the whole table at once.
+ * <p>
+ * The chunks are copied by the thread which uses the table; another thread 
+ * reads them after {@link #await()}.
+ * 
+ * @author Alexandre Lima
+ */
+final class TableSnapshot {
+    
+    static final int CHUNK_SIZE = 1024;
+    
+    //Copies the stored states of the indexes [from, to)
+    interface Copier {
+        Rows copy(int from, int to);
+    }
+    
+    //the number of rows (or states) of the table at the start
+    private final int size;
+    private final Copier copier;
+    private final Rows[] chunks;
+    private int numberOfCopiedChunks;
+    //the first chunk which may not be copied
+    private int nextChunk;
+    private final CountDownLatch copied = new CountDownLatch(1);
+    
+    /**
+     * @param size      The number of rows (or states) of the table.
+     * @param copier    Copies the rows of the table.
+     */
+    TableSnapshot(int size, Copier copier) {
+        this.size = size;
+        this.copier = copier;
+        this.chunks = new Rows[(int) ((size + (long) CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        if (chunks.length == 0) {
+            copied.countDown();
+        }
+    }
+    
+    /**
+     * Copies the whole table at once.
+     * @param table The table.
+     * @return A complete snapshot.
+     */
+    static TableSnapshot copyOf(QTable table) {
+        Rows rows = new Rows(table.getNumberOfJumps(), table.getNumberOfStates());
+        table.forEachState(state -> rows.add(table, state));
+        TableSnapshot snapshot = new TableSnapshot(1, (from, to) -> rows);
+        snapshot.complete();
+        return snapshot;
+    }
+    
+    /**
+     * Called by the table before it changes a value.
+     * @param index The row (or state) of the value.
+     * @return true if the snapshot is complete and the table may drop it.
+     */
+    boolean beforeWrite(int index) {
+        if (index < size) {
+            copy(index / CHUNK_SIZE);
+        }
+        while (nextChunk < chunks.length && chunks[nextChunk] != null) {
+            nextChunk++;
+        }
+        if (nextChunk < chunks.length) {
+            copy(nextChunk);
+        }
+        return isComplete();
+    }
+    
+    /**
+     * Copies the chunks which are not copied yet. It must be called by the 
+     * thread which uses the table.
+     */
+    void complete() {
+        for (int chunk = nextChunk; chunk < chunks.length; chunk++) {
+            copy(chunk);
+        }
+        nextChunk = chunks.length;
+    }
+    
+    private void copy(int chunk) {
+        if (chunks[chunk] == null) {
+            int from = chunk * CHUNK_SIZE;
+            int to = (int) Math.min(size, (long) from + CHUNK_SIZE);
+            chunks[chunk] = copier.copy(from, to);
+            if (++numberOfCopiedChunks == chunks.length) {
+                copied.countDown();
+            }
+        }
+    }
+    
+    boolean isComplete() {
+        return numberOfCopiedChunks == chunks.length;
+    }
+    
+    /**
+     * Waits for all the chunks to be copied.
+     * @throws InterruptedException 
+     */
+    void await() throws InterruptedException {
+        copied.await();
+    }
+    
+    /**
+     * Returns the copied chunks. The snapshot must be complete.
+     * @return 
+     */
+    Rows[] getChunks() {
+        return chunks;
+    }
+    
+    //Copy of the rows of some states of a table
+    static class Rows {
+        
+        final int jumps;
+        long[] states;
+        double[] values;
+        int size;
+        
+        Rows(int jumps, int capacity) {
+            this.jumps = jumps;
+            this.states = new long[Math.max(16, capacity)];
+            this.values = new double[states.length * jumps];
+        }
+        
+        void add(QTable table, long state) {
+            ensureCapacity();
+            states[size] = state;
+            table.getValues(state, values, size * jumps);
+            size++;
+        }
+        
+        void add(long state, double[] source, int offset) {
+            ensureCapacity();
+            states[size] = state;
+            System.arraycopy(source, offset, values, size * jumps, jumps);
+            size++;
+        }
+        
+        private void ensureCapacity() {
+            //the table may grow while it is copied by a parallel training
+            if (size == states.length) {
+                states = Arrays.copyOf(states, size * 2);
+                values = Arrays.copyOf(values, size * 2 * jumps);
+            }
+        }
+    }
+}
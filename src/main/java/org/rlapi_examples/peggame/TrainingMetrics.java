@@ -0,0 +1,295 @@
+package org.rlapi_examples.peggame;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentation of a training. The agents count their episodes, moves and 
+ * solved games with {@link LongAdder}s, so several workers can share the 
+ * metrics without contention. The time spent by the game, the oracle and the 
+ * table is measured on one episode out of {@link #TIMING_SAMPLE} and scaled, 
+ * so the clock is not read on every move.
+ * <p>
+ * The metrics are exposed as an MBean (see {@link #register()}) and can be 
+ * logged periodically (see {@link #startLogging(long, PrintStream)}). The 
+ * rates are computed over the window between two calls of {@link #sample()}; 
+ * the logging samples on each line.
+ * 
+ * @author Alexandre Lima
+ */
+public class TrainingMetrics implements TrainingMetricsMBean, AutoCloseable {
+    
+    /**
+     * Number of episodes per timed episode.
+     */
+    public static final int TIMING_SAMPLE = 16;
+    
+    private final QTable table;
+    private final LongAdder episodes = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder solvedEpisodes = new LongAdder();
+    private final LongAdder moveGenerationNanos = new LongAdder();
+    private final LongAdder oracleNanos = new LongAdder();
+    private final LongAdder tableNanos = new LongAdder();
+    //last sampling window
+    private long sampleTime;
+    private long sampleEpisodes;
+    private long sampleSteps;
+    private long sampleSolvedEpisodes;
+    private int sampleTableSize;
+    private volatile double episodesPerSecond;
+    private volatile double stepsPerSecond;
+    private volatile double statesDiscoveredPerSecond;
+    private volatile double successRate;
+    //bytes allocated by each thread seen, by thread id, so the threads which 
+    //exit are still counted; guarded by this
+    private final Map<Long, Long> allocatedBytes = new HashMap<>();
+    private ScheduledExecutorService logger;
+    private ObjectName name;
+    
+    /**
+     * @param table The action-value table of the training.
+     */
+    public TrainingMetrics(QTable table) {
+        this.table = table;
+        this.sampleTime = System.nanoTime();
+    }
+    
+    /**
+     * Counts an episode.
+     * @param numberOfSteps The number of moves of the episode.
+     * @param solved        Tells if the episode ended with one piece.
+     */
+    void episodeFinished(int numberOfSteps, boolean solved) {
+        episodes.increment();
+        steps.add(numberOfSteps);
+        if (solved) {
+            solvedEpisodes.increment();
+        }
+    }
+    
+    /**
+     * Adds the times of a timed episode.
+     * @param moveGeneration    Nanoseconds spent by the game.
+     * @param oracle            Nanoseconds spent by the oracle.
+     * @param table             Nanoseconds spent by the table.
+     */
+    void addTimes(long moveGeneration, long oracle, long table) {
+        moveGenerationNanos.add(moveGeneration);
+        oracleNanos.add(oracle);
+        tableNanos.add(table);
+    }
+    
+    /**
+     * Closes the current sampling window and computes its rates.
+     */
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        long currentEpisodes = episodes.sum();
+        long currentSteps = steps.sum();
+        long currentSolved = solvedEpisodes.sum();
+        int currentTableSize = table.getNumberOfStates();
+        double seconds = Math.max(now - sampleTime, 1) / 1e9;
+        long windowEpisodes = currentEpisodes - sampleEpisodes;
+        episodesPerSecond = windowEpisodes / seconds;
+        stepsPerSecond = (currentSteps - sampleSteps) / seconds;
+        statesDiscoveredPerSecond = (currentTableSize - sampleTableSize) / seconds;
+        if (windowEpisodes > 0) {
+            successRate = (double) (currentSolved - sampleSolvedEpisodes) / windowEpisodes;
+        }
+        sampleTime = now;
+        sampleEpisodes = currentEpisodes;
+        sampleSteps = currentSteps;
+        sampleSolvedEpisodes = currentSolved;
+        sampleTableSize = currentTableSize;
+        getAllocatedBytes();
+    }
+    
+    /**
+     * Samples the metrics and prints a line with them periodically, from a 
+     * daemon thread.
+     * @param periodSeconds The period of the log lines.
+     * @param out           The stream of the log lines.
+     */
+    public synchronized void startLogging(long periodSeconds, PrintStream out) {
+        if (logger != null) {
+            throw new IllegalStateException("The metrics are already logged");
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "training-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> {
+            sample();
+            out.println(format());
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Returns a line with the main metrics.
+     * @return 
+     */
+    public synchronized String format() {
+        double timed = getMoveGenerationSeconds() + getOracleSeconds() + getTableUpdateSeconds();
+        return String.format(Locale.ROOT, "episodes=%d (%.0f/s) steps=%d (%.0f/s) states=%d (+%.0f/s) "
+                + "success=%.1f%% time: game=%.0f%% oracle=%.0f%% table=%.0f%% gc=%d (%d ms) allocated=%d MB",
+                getEpisodes(), episodesPerSecond, getSteps(), stepsPerSecond, 
+                sampleTableSize, statesDiscoveredPerSecond, 100 * successRate, 
+                percent(getMoveGenerationSeconds(), timed), percent(getOracleSeconds(), timed), 
+                percent(getTableUpdateSeconds(), timed), 
+                getGcCount(), getGcTimeMillis(), getAllocatedBytes() >> 20);
+    }
+    
+    private static double percent(double part, double total) {
+        return total == 0 ? 0 : 100 * part / total;
+    }
+    
+    /**
+     * Registers the metrics on the platform MBean server.
+     * @throws JMException 
+     */
+    public synchronized void register() throws JMException {
+        if (name == null) {
+            ObjectName newName = new ObjectName("org.rlapi_examples.peggame:type=TrainingMetrics,id=" 
+                    + Integer.toHexString(System.identityHashCode(this)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            name = newName;
+        }
+    }
+    
+    /**
+     * Stops the logging and unregisters the MBean.
+     */
+    @Override
+    public synchronized void close() {
+        if (logger != null) {
+            logger.shutdownNow();
+            logger = null;
+        }
+        if (name != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException ex) {
+                //already unregistered
+            }
+            name = null;
+        }
+    }
+    
+    public ObjectName getObjectName() {
+        return name;
+    }
+    
+    @Override
+    public long getEpisodes() {
+        return episodes.sum();
+    }
+    
+    @Override
+    public long getSteps() {
+        return steps.sum();
+    }
+    
+    @Override
+    public double getEpisodesPerSecond() {
+        return episodesPerSecond;
+    }
+    
+    @Override
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+    
+    @Override
+    public int getTableSize() {
+        return table.getNumberOfStates();
+    }
+    
+    @Override
+    public double getStatesDiscoveredPerSecond() {
+        return statesDiscoveredPerSecond;
+    }
+    
+    @Override
+    public double getSuccessRate() {
+        return successRate;
+    }
+    
+    @Override
+    public double getMoveGenerationSeconds() {
+        return moveGenerationNanos.sum() * (double) TIMING_SAMPLE / 1e9;
+    }
+    
+    @Override
+    public double getOracleSeconds() {
+        return oracleNanos.sum() * (double) TIMING_SAMPLE / 1e9;
+    }
+    
+    @Override
+    public double getTableUpdateSeconds() {
+        return tableNanos.sum() * (double) TIMING_SAMPLE / 1e9;
+    }
+    
+    @Override
+    public long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+    
+    @Override
+    public long getGcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+    
+    /**
+     * {@inheritDoc} The allocation of a thread is read on each call and on 
+     * each {@link #sample()}; a thread which exits keeps the bytes of its 
+     * last reading, so the total does not decrease.
+     * @return 
+     */
+    @Override
+    public synchronized long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            //-1 for a thread which has exited meanwhile
+            if (bytes[i] >= 0) {
+                allocatedBytes.merge(ids[i], bytes[i], Math::max);
+            }
+        }
+        long total = 0;
+        for (long threadBytes : allocatedBytes.values()) {
+            total += threadBytes;
+        }
+        return total;
+    }
+}
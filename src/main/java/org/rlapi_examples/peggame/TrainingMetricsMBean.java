@@ -0,0 +1,83 @@
+package org.rlapi_examples.peggame;
+
+/**
+ * Management interface of {@link TrainingMetrics}. The rates are measured 
+ * over the last sampling window; the totals are counted since the start of 
+ * the training.
+ * 
+ * @author Alexandre Lima
+ */
+public interface TrainingMetricsMBean {
+    
+    /**
+     * Returns the number of episodes played.
+     * @return 
+     */
+    long getEpisodes();
+    
+    /**
+     * Returns the number of moves played.
+     * @return 
+     */
+    long getSteps();
+    
+    double getEpisodesPerSecond();
+    
+    double getStepsPerSecond();
+    
+    /**
+     * Returns the number of states stored in the action-value table.
+     * @return 
+     */
+    int getTableSize();
+    
+    /**
+     * Returns the number of states added to the table per second.
+     * @return 
+     */
+    double getStatesDiscoveredPerSecond();
+    
+    /**
+     * Returns the rate of the episodes which ended with one piece.
+     * @return 
+     */
+    double getSuccessRate();
+    
+    /**
+     * Returns the estimated time spent by the game: moves and move generation.
+     * @return 
+     */
+    double getMoveGenerationSeconds();
+    
+    /**
+     * Returns the estimated time spent by the solvability oracle.
+     * @return 
+     */
+    double getOracleSeconds();
+    
+    /**
+     * Returns the estimated time spent reading and updating the table.
+     * @return 
+     */
+    double getTableUpdateSeconds();
+    
+    /**
+     * Returns the number of garbage collections of the JVM.
+     * @return 
+     */
+    long getGcCount();
+    
+    /**
+     * Returns the time spent on garbage collections by the JVM.
+     * @return 
+     */
+    long getGcTimeMillis();
+    
+    /**
+     * Returns the bytes allocated by the threads of the JVM, including the 
+     * ones which have exited since they were first measured, or -1 if the JVM 
+     * does not measure it.
+     * @return 
+     */
+    long getAllocatedBytes();
+}
@@ -1,6 +1,7 @@
 package org.rlapi_examples.peggame;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -34,14 +35,33 @@ public class Util {
     public static void writePolicy(String fileName, Map<String, String> politica, 
             String appendix) throws IOException{
         try (FileWriter fWriter = new FileWriter(fileName)) {
-            for (String key : politica.keySet()) {
-                fWriter.write(key + " " + politica.get(key) + "\n");
+            for (Map.Entry<String, String> e : politica.entrySet()) {
+                fWriter.write(e.getKey() + " " + e.getValue() + "\n");
             }
             fWriter.write("\n");
             fWriter.write(appendix);
         }
     }
     
+    /**
+     * Writes the greedy policy of an agent like 
+     * {@link #writePolicy(java.lang.String, java.util.Map, java.lang.String)}, 
+     * but streams the moves from the agent's table instead of building the 
+     * policy (see {@link PegQLearning#writePolicy(java.io.Writer)}).
+     * @param fileName
+     * @param agent
+     * @param appendix
+     * @throws IOException 
+     */
+    public static void writePolicy(String fileName, PegQLearning agent, String appendix) 
+            throws IOException{
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName), 64 * 1024)) {
+            agent.writePolicy(writer);
+            writer.write("\n");
+            writer.write(appendix);
+        }
+    }
+    
     /**
      * Returns the number of empty spaces on a board game.
      * @param boardState binary representation of a board.
@@ -0,0 +1,51 @@
+package org.rlapi_examples.peggame;
+
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class ActionCodecTest {
+    
+    @Test
+    public void testDecode_1(){
+        //Every jump is decoded from its string, for every board size
+        for(int levels = NumberOfLevels.MIN_NUMBER; levels <= NumberOfLevels.MAX_NUMBER; levels++){
+            ActionCodec codec = ActionCodec.forLevels(levels);
+            JumpTable jumps = JumpTable.forLevels(levels);
+            for(int jump = 0; jump < jumps.size(); jump++){
+                String action = codec.encode(jump);
+                Assert.assertEquals((jumps.getSource(jump) + 1) + " " + (jumps.getTarget(jump) + 1), action);
+                Assert.assertEquals(jump, codec.decode(action));
+                //a copy of the string is decoded too
+                Assert.assertEquals(jump, codec.decode(new String(action)));
+            }
+        }
+    }
+    
+    @Test
+    public void testDecode_2(){
+        //Strings which are not the codec's ones are parsed
+        ActionCodec codec = ActionCodec.forLevels(NumberOfLevels.FIVE);
+        JumpTable jumps = JumpTable.forLevels(NumberOfLevels.FIVE);
+        Assert.assertEquals(jumps.getJump(3, 0), codec.decode("04 1"));
+        Assert.assertEquals(-1, codec.decode("1 2"));
+        Assert.assertEquals(-1, codec.decode("1 99"));
+    }
+    
+    @Test
+    public void testEncode_1(){
+        //The moves of a game are the codec's shared strings
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        ActionCodec codec = ActionCodec.forLevels(NumberOfLevels.FIVE);
+        int[] moves = new int[game.getJumpTable().size()];
+        int count = game.getValidMoves(moves);
+        List<String> actions = game.getValidMoves2();
+        for(int i = 0; i < count; i++){
+            Assert.assertTrue(codec.encode(moves[i]) == actions.get(i));
+        }
+    }
+}
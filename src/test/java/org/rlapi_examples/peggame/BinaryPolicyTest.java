@@ -0,0 +1,48 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class BinaryPolicyTest {
+    
+    @Test
+    public void testLoad_1() throws IOException{
+        //A policy written and loaded back has the same moves
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.FIVE);
+        solver.solveStartingBoards(1);
+        Map<String, String> policy = solver.getPolicy();
+        Path file = Files.createTempFile("policy", ".bin");
+        file.toFile().deleteOnExit();
+        BinaryPolicy.write(file, policy, NumberOfLevels.FIVE);
+        BinaryPolicy loaded = BinaryPolicy.load(file);
+        Assert.assertEquals(policy.size(), loaded.size());
+        Assert.assertEquals(NumberOfLevels.FIVE, loaded.getNumberOfLevels());
+        PegPolicy expected = PegPolicy.fromMap(policy, NumberOfLevels.FIVE);
+        for(String state : policy.keySet()){
+            long id = PegGame.parseBinaryRepresentation(state);
+            Assert.assertEquals(expected.getMove(id), loaded.getMove(id));
+        }
+        Assert.assertEquals(-1, loaded.getMove(0b1L));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testLoad_2() throws IOException{
+        //Validates the file format
+        Path file = Files.createTempFile("policy", ".txt");
+        try{
+            Files.write(file, "111011111111111 4 1\n".getBytes());
+            BinaryPolicy.load(file);
+        }
+        finally{
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class BoardSymmetryTest {
+    
+    @Test
+    public void testApplyToJump_1(){
+        //Every symmetry maps jumps to jumps and keeps their validity
+        BoardSymmetry symmetry = BoardSymmetry.forLevels(NumberOfLevels.SIX);
+        JumpTable jumps = JumpTable.forLevels(NumberOfLevels.SIX);
+        Random rand = new Random(3);
+        for(int i = 0; i < 1000; i++){
+            long board = rand.nextLong() & ((1L << 21) - 1);
+            for(int s = 0; s < BoardSymmetry.NUMBER_OF_SYMMETRIES; s++){
+                long image = symmetry.apply(s, board);
+                Assert.assertEquals(Long.bitCount(board), Long.bitCount(image));
+                for(int jump = 0; jump < jumps.size(); jump++){
+                    int imageJump = symmetry.applyToJump(s, jump);
+                    Assert.assertTrue(imageJump != -1);
+                    Assert.assertEquals(jumps.isValid(board, jump), jumps.isValid(image, imageJump));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testCanonicalize_1(){
+        //The corners of the board are equivalent
+        BoardSymmetry symmetry = BoardSymmetry.forLevels(NumberOfLevels.FIVE);
+        long top = PegGame.parseBinaryRepresentation("011111111111111");
+        long left = PegGame.parseBinaryRepresentation("111111111101111");
+        long right = PegGame.parseBinaryRepresentation("111111111111110");
+        Assert.assertEquals(symmetry.canonicalize(top), symmetry.canonicalize(left));
+        Assert.assertEquals(symmetry.canonicalize(top), symmetry.canonicalize(right));
+    }
+    
+    @Test
+    public void testCanonicalStates_1(){
+        //Training over canonical states keeps a smaller table and its policy 
+        //covers the symmetric boards
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        PegQLearning agent = new PegQLearning(game, new HashQTable(NumberOfLevels.FIVE), new Random(5));
+        agent.setCanonicalStates(true);
+        Map<String, String> policy = agent.train(100_000, 0.8, 0.9, 0.2);
+        game.setInitialNumberOfEmptyPlaces(1);
+        for(int i = 0; i < 100; i++){
+            game.startGame();
+            while(!game.isEndOfGame()){
+                game.movePiece(policy.get(game.getCurrentState()));
+            }
+            Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.rlapi_examples.peggame;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import org.junit.Assert;
 import org.junit.Test;
@@ -77,6 +79,133 @@ public class BoardTest {
         Assert.assertFalse(game.isInTerminalState());
     }
     
+    @Test
+    public void testMovePiece_1(){
+        //Piece of place 4 jumps over place 2 towards place 1
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("010100000000000");
+        Assert.assertTrue(game.movePiece("4 1"));
+        Assert.assertEquals("100000000000000", game.getBinaryRepresentation());
+        Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+    }
+    
+    @Test
+    public void testMovePiece_2(){
+        //Target place is occupied
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("111100000000000");
+        Assert.assertFalse(game.movePiece("4 1"));
+        Assert.assertEquals("111100000000000", game.getBinaryRepresentation());
+    }
+    
+    @Test
+    public void testGetValidMoves_1(){
+        //The primitive API returns the same moves of the string API
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("110110011100100");
+        int[] moves = new int[game.getJumpTable().size()];
+        int count = game.getValidMoves(moves);
+        List<String> expected = game.getValidMoves2();
+        Assert.assertEquals(expected.size(), count);
+        for(int i = 0; i < count; i++){
+            JumpTable jumps = game.getJumpTable();
+            Assert.assertEquals(expected.get(i), 
+                    (jumps.getSource(moves[i]) + 1) + " " + (jumps.getTarget(moves[i]) + 1));
+        }
+    }
+    
+    @Test
+    public void testPerformAction_1(){
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("010100000000000");
+        int jump = game.getJumpTable().getJump(3, 0);
+        Assert.assertEquals(100.0, game.performAction(jump), 0.0);
+        Assert.assertTrue(Double.isNaN(game.performAction(jump)));
+    }
+    
+    @Test
+    public void testGetStateId_1(){
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("110000000000001");
+        Assert.assertEquals(0b100000000000011L, game.getStateId());
+        Assert.assertEquals(0b100000000000011, game.getCompactStateId());
+    }
+    
+    @Test
+    public void testGetStateId_2(){
+        //State ids and binary representations are interchangeable
+        PegGame game = new PegGame(NumberOfLevels.SIX);
+        game.startGame();
+        String representation = game.getBinaryRepresentation();
+        Assert.assertEquals(representation, 
+                PegGame.toBinaryRepresentation(game.getStateId(), game.getPlaces().size()));
+        game.setBoardState(PegGame.parseBinaryRepresentation(representation));
+        Assert.assertEquals(representation, game.getBinaryRepresentation());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetBoardState_3(){
+        //Validates the places of a state id
+        PegGame game = new PegGame(NumberOfLevels.FIVE); //15 places
+        game.setBoardState(1L << 15);
+    }
+    
+    @Test
+    public void testGetAvailableActions_1(){
+        //The actions follow the board changes
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("010100000000000");
+        Assert.assertEquals(Arrays.asList("2 7", "4 1"), game.getAvailableActions());
+        Assert.assertTrue(game.getAvailableActions() == game.getAvailableActions());
+        game.performAction("4 1");
+        Assert.assertTrue(game.getAvailableActions().isEmpty());
+        game.getPlaces().get(1).occupy();
+        Assert.assertEquals(Arrays.asList("1 4"), game.getAvailableActions());
+    }
+    
+    @Test
+    public void testGetNumberOfOccupiedPlaces_3(){
+        //The count follows moves and changes of single places
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("010100000000000");
+        game.movePiece("4 1");
+        Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+        game.getPlaces().get(5).occupy();
+        Assert.assertEquals(2, game.getNumberOfOccupiedPlaces());
+        game.getPlaces().get(0).clear();
+        Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+    }
+    
+    @Test
+    public void testHasAnyMove_1(){
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("101001000100001");
+        Assert.assertFalse(game.hasAnyMove());
+        game.setBoardState("111000000000000");
+        Assert.assertTrue(game.hasAnyMove());
+        game.getValidMoves2();
+        Assert.assertTrue(game.hasAnyMove());
+    }
+    
+    @Test
+    public void testLargeBoard_1(){
+        //10 levels: 55 places
+        PegGame game = new PegGame(10);
+        Assert.assertEquals(55, game.getPlaces().size());
+        Assert.assertEquals(54, game.getNumberOfOccupiedPlaces());
+        Assert.assertEquals(1, countEmptyPlaces(game));
+        game.setBoardState(PegGame.toBinaryRepresentation(0b11L << 52, 55));
+        Assert.assertEquals(0b11L << 52, game.getStateId());
+        //places 53 and 54 (indexes 52 and 53) are on the last level
+        Assert.assertEquals(Arrays.asList("53 55", "54 52"), game.getValidMoves2());
+        Assert.assertEquals(100.0, game.performAction("54 52"), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testLargeBoard_2(){
+        new PegGame(NumberOfLevels.MAX_NUMBER + 1);
+    }
+    
     private long countEmptyPlaces(PegGame game){
         return game.getPlaces().stream()
                 .filter(p -> !p.isOccupied())
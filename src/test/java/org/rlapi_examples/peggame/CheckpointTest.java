@@ -0,0 +1,109 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class CheckpointTest {
+    
+    private static PegQLearning createAgent(){
+        PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new SavableRandom(7)), 
+                new HashQTable(NumberOfLevels.FIVE), new SavableRandom(11));
+        agent.setCanonicalStates(true);
+        return agent;
+    }
+    
+    @Test
+    public void testResume_1() throws IOException{
+        //A resumed training learns the same table of an uninterrupted one
+        PegQLearning uninterrupted = createAgent();
+        uninterrupted.train(20_000, 0.8, 0.9, 0.2);
+        
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        file.toFile().deleteOnExit();
+        PegQLearning first = createAgent();
+        try(Checkpointer checkpointer = new Checkpointer(file, NumberOfLevels.FIVE)){
+            first.setCheckpointer(checkpointer, 10_000);
+            first.train(10_000, 0.8, 0.9, 0.2);
+        }
+        PegQLearning resumed = createAgent();
+        Assert.assertEquals(10_000, resumed.resume(file));
+        Assert.assertEquals(first.getTable().getNumberOfStates(), 
+                resumed.getTable().getNumberOfStates());
+        resumed.train(20_000, 0.8, 0.9, 0.2);
+        Assert.assertEquals(20_000, resumed.getNumberOfEpisodes());
+        
+        QTable expected = uninterrupted.getTable();
+        QTable actual = resumed.getTable();
+        Assert.assertEquals(expected.getNumberOfStates(), actual.getNumberOfStates());
+        expected.forEachState(state -> {
+            for(int jump = 0; jump < expected.getNumberOfJumps(); jump++){
+                Assert.assertEquals(expected.getValue(state, jump), actual.getValue(state, jump), 0);
+            }
+        });
+    }
+    
+    @Test
+    public void testResume_2() throws IOException, InterruptedException{
+        //A parallel training restores the episodes played by each worker
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        file.toFile().deleteOnExit();
+        ParallelPegQLearning agent = new ParallelPegQLearning(NumberOfLevels.FIVE, 
+                new StripedQTable(NumberOfLevels.FIVE, 8));
+        agent.addWorker(3_000, EpsilonSchedule.constant(0.2));
+        agent.addWorker(5_000, EpsilonSchedule.constant(0.2));
+        try(Checkpointer checkpointer = new Checkpointer(file, NumberOfLevels.FIVE)){
+            agent.setCheckpointer(checkpointer, 1_000);
+            agent.train(0.8, 0.9);
+        }
+        
+        ParallelPegQLearning resumed = new ParallelPegQLearning(NumberOfLevels.FIVE, 
+                new StripedQTable(NumberOfLevels.FIVE, 8));
+        resumed.addWorker(3_000, EpsilonSchedule.constant(0.2));
+        resumed.addWorker(5_000, EpsilonSchedule.constant(0.2));
+        Assert.assertEquals(8_000, resumed.resume(file));
+        Assert.assertEquals(agent.getTable().getNumberOfStates(), 
+                resumed.getTable().getNumberOfStates());
+    }
+    
+    @Test
+    public void testSave_1() throws IOException{
+        //The values of a striped table are streamed and the last checkpoint is kept
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        file.toFile().deleteOnExit();
+        StripedQTable table = new StripedQTable(NumberOfLevels.FIVE, 4);
+        for(long state = 1; state <= 1000; state++){
+            table.setValue(state, (int) (state % table.getNumberOfJumps()), state);
+        }
+        try(Checkpointer checkpointer = new Checkpointer(file, NumberOfLevels.FIVE)){
+            for(long episodes = 1; episodes <= 20; episodes++){
+                checkpointer.save(table, new long[]{episodes}, new SavableRandom(episodes));
+            }
+        }
+        HashQTable loaded = new HashQTable(NumberOfLevels.FIVE);
+        Checkpoint checkpoint = Checkpoint.load(file, loaded);
+        Assert.assertArrayEquals(new long[]{20}, checkpoint.getEpisodes());
+        Assert.assertEquals(new Random(20).nextLong(), checkpoint.getRandoms()[0].nextLong());
+        Assert.assertEquals(1000, checkpoint.getNumberOfStates());
+        Assert.assertEquals(1000, loaded.getNumberOfStates());
+        for(long state = 1; state <= 1000; state++){
+            Assert.assertEquals(state, loaded.getValue(state, (int) (state % table.getNumberOfJumps())), 0);
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testLoad_1() throws IOException{
+        //A file which is not a checkpoint is rejected
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        Checkpoint.load(file, new HashQTable(NumberOfLevels.FIVE));
+    }
+}
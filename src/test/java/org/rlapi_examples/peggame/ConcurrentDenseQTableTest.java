@@ -0,0 +1,67 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class ConcurrentDenseQTableTest {
+    
+    @Test
+    public void testSetValue_1() throws InterruptedException{
+        //States stored concurrently in the same words of the bitset are all counted
+        ConcurrentDenseQTable table = new ConcurrentDenseQTable(NumberOfLevels.FIVE);
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++){
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for(long state = first; state < 1L << 15; state += threads.length){
+                    table.setValue(state, 0, state);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread t : threads){
+            t.join();
+        }
+        Assert.assertEquals(1 << 15, table.getNumberOfStates());
+        for(long state = 0; state < 1L << 15; state++){
+            Assert.assertTrue(table.containsState(state));
+            Assert.assertEquals(state, table.getValue(state, 0), 0);
+        }
+    }
+    
+    @Test
+    public void testTrain_1() throws InterruptedException, IOException{
+        //A parallel training on the dense table is checkpointed and resumed
+        ParallelPegQLearning agent = new ParallelPegQLearning(NumberOfLevels.FIVE, 
+                new ConcurrentDenseQTable(NumberOfLevels.FIVE));
+        agent.addWorker(2_000, EpsilonSchedule.constant(0.2));
+        agent.addWorker(2_000, EpsilonSchedule.constant(0.2));
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        file.toFile().deleteOnExit();
+        try(Checkpointer checkpointer = new Checkpointer(file, NumberOfLevels.FIVE)){
+            agent.setCheckpointer(checkpointer, 1_000);
+            agent.train(0.8, 0.9);
+        }
+        QTable table = agent.getTable();
+        Assert.assertTrue(table.getNumberOfStates() > 0);
+        
+        ParallelPegQLearning resumed = new ParallelPegQLearning(NumberOfLevels.FIVE, 
+                new ConcurrentDenseQTable(NumberOfLevels.FIVE));
+        resumed.addWorker(2_000, EpsilonSchedule.constant(0.2));
+        resumed.addWorker(2_000, EpsilonSchedule.constant(0.2));
+        Assert.assertEquals(4_000, resumed.resume(file));
+        Assert.assertEquals(table.getNumberOfStates(), resumed.getTable().getNumberOfStates());
+        table.forEachState(state -> {
+            for(int jump = 0; jump < table.getNumberOfJumps(); jump++){
+                Assert.assertEquals(table.getValue(state, jump), resumed.getTable().getValue(state, jump), 0);
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class DenseQTableTest {
+    
+    @Test
+    public void testUpdate_1(){
+        QTable table = new DenseQTable(NumberOfLevels.FIVE);
+        Assert.assertEquals(0.0, table.getValue(0b1011L, 3), 0.0);
+        Assert.assertFalse(table.containsState(0b1011L));
+        table.update(0b1011L, 3, 10.0, 0.5);
+        table.update(0b1011L, 3, 10.0, 0.5);
+        Assert.assertEquals(7.5, table.getValue(0b1011L, 3), 1e-9);
+        Assert.assertEquals(0.0, table.getValue(0b1011L, 4), 0.0);
+        Assert.assertTrue(table.containsState(0b1011L));
+        Assert.assertEquals(1, table.getNumberOfStates());
+    }
+    
+    @Test
+    public void testTrain_1(){
+        //The dense table learns the same values of the hash table
+        QTable dense = new DenseQTable(NumberOfLevels.FIVE);
+        QTable hash = new HashQTable(NumberOfLevels.FIVE);
+        new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), dense, new Random(2))
+                .runEpisodes(5000, 0.8, 0.9, 0.2);
+        new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), hash, new Random(2))
+                .runEpisodes(5000, 0.8, 0.9, 0.2);
+        Assert.assertEquals(hash.getNumberOfStates(), dense.getNumberOfStates());
+        hash.forEachState(state -> {
+            Assert.assertTrue(dense.containsState(state));
+            for(int jump = 0; jump < hash.getNumberOfJumps(); jump++){
+                Assert.assertEquals(hash.getValue(state, jump), dense.getValue(state, jump), 0.0);
+            }
+        });
+    }
+    
+    @Test
+    public void testCreate_1(){
+        //The dense table is chosen when it fits the budget
+        Assert.assertTrue(QTable.create(NumberOfLevels.FIVE, 64L << 20) instanceof DenseQTable);
+        Assert.assertTrue(QTable.create(NumberOfLevels.FIVE, 1L << 20) instanceof HashQTable);
+        Assert.assertTrue(QTable.create(NumberOfLevels.of(8), Long.MAX_VALUE - 1) instanceof HashQTable);
+    }
+}
@@ -0,0 +1,49 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class DynaQLearningTest {
+    
+    @Test
+    public void testPlan_1(){
+        //The planning learns a policy which solves the board with fewer real episodes
+        PolicyEvaluator evaluator = new PolicyEvaluator(NumberOfLevels.FIVE);
+        evaluator.setInitialNumberOfEmptyPlaces(1);
+        PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), 
+                new HashQTable(NumberOfLevels.FIVE), new Random(2));
+        agent.setCanonicalStates(true);
+        agent.runEpisodes(2000, 0.8, 0.9, 0.2);
+        double successRate = evaluator.evaluate(agent.getGreedyPolicy(), 1000, 7).getSuccessRate();
+        
+        PegQLearning planningAgent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), 
+                new HashQTable(NumberOfLevels.FIVE), new Random(2));
+        planningAgent.setCanonicalStates(true);
+        DynaQLearning dyna = new DynaQLearning(planningAgent, 100, new Random(3));
+        for(int episode = 1; episode <= 2000; episode++){
+            planningAgent.runEpisodes(episode, 0.8, 0.9, 0.2);
+            dyna.plan(0.8, 0.9);
+        }
+        double planningSuccessRate = evaluator.evaluate(
+                planningAgent.getGreedyPolicy(), 1000, 7).getSuccessRate();
+        Assert.assertTrue(planningSuccessRate > successRate);
+        Assert.assertEquals(2000 * 100, dyna.getNumberOfPlanningUpdates());
+    }
+    
+    @Test
+    public void testRunEpisodes_1() throws InterruptedException{
+        //The planner runs after each real episode
+        PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE), 
+                new StripedQTable(NumberOfLevels.FIVE, 8));
+        DynaQLearning dyna = new DynaQLearning(agent, 10);
+        dyna.runEpisodes(500, 0.8, 0.9, 0.2);
+        Assert.assertEquals(500, agent.getNumberOfEpisodes());
+        Assert.assertEquals(500 * 10, dyna.getNumberOfPlanningUpdates());
+        Assert.assertTrue(dyna.getModel().size() > 0);
+    }
+}
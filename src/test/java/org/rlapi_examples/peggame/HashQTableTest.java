@@ -0,0 +1,46 @@
+package org.rlapi_examples.peggame;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class HashQTableTest {
+    
+    @Test
+    public void testGetValue_1(){
+        //Pairs never set are zero
+        QTable table = new HashQTable(NumberOfLevels.FIVE);
+        Assert.assertEquals(0.0, table.getValue(0b1011L, 3), 0.0);
+        Assert.assertEquals(0, table.getNumberOfStates());
+    }
+    
+    @Test
+    public void testUpdate_1(){
+        QTable table = new HashQTable(NumberOfLevels.FIVE);
+        table.update(0b1011L, 3, 10.0, 0.5);
+        table.update(0b1011L, 3, 10.0, 0.5);
+        Assert.assertEquals(7.5, table.getValue(0b1011L, 3), 1e-9);
+        Assert.assertEquals(0.0, table.getValue(0b1011L, 4), 0.0);
+    }
+    
+    @Test
+    public void testForEachState_1(){
+        //The table grows beyond its initial capacity keeping every value
+        QTable table = new HashQTable(NumberOfLevels.SIX);
+        for(long state = 0; state < 1000; state++){
+            table.setValue(state * 7919, (int)(state % 60), state);
+        }
+        Assert.assertEquals(1000, table.getNumberOfStates());
+        Set<Long> states = new HashSet<>();
+        table.forEachState(s -> states.add(s));
+        Assert.assertEquals(1000, states.size());
+        for(long state = 0; state < 1000; state++){
+            Assert.assertEquals(state, table.getValue(state * 7919, (int)(state % 60)), 0.0);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.rlapi_examples.peggame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class IndexedMaxHeapTest {
+    
+    @Test
+    public void testPoll_1(){
+        //The items leave the heap by decreasing priority, once each
+        IndexedMaxHeap heap = new IndexedMaxHeap();
+        double[] priorities = {3, 1, 4, 1.5, 9, 2.6, 5};
+        for(int item = 0; item < priorities.length; item++){
+            heap.offer(item, priorities[item]);
+        }
+        heap.offer(1, 10);    //raised
+        heap.offer(4, 0.5);   //kept
+        Assert.assertEquals(priorities.length, heap.size());
+        int[] expected = {1, 4, 6, 2, 0, 5, 3};
+        for(int item : expected){
+            Assert.assertTrue(heap.contains(item));
+            Assert.assertEquals(item, heap.poll());
+            Assert.assertFalse(heap.contains(item));
+        }
+        Assert.assertEquals(-1, heap.poll());
+    }
+}
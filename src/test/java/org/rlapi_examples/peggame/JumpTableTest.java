@@ -0,0 +1,34 @@
+package org.rlapi_examples.peggame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class JumpTableTest {
+    
+    @Test
+    public void testSize(){
+        //Each line with k places allows 2 * (k - 2) jumps in each of the 3 axes
+        Assert.assertEquals(36, JumpTable.forLevels(NumberOfLevels.FIVE).size());
+        Assert.assertEquals(60, JumpTable.forLevels(NumberOfLevels.SIX).size());
+    }
+    
+    @Test
+    public void testGetJump(){
+        JumpTable table = JumpTable.forLevels(NumberOfLevels.FIVE);
+        //Place 4 (index 3) jumps over place 2 (index 1) towards place 1 (index 0)
+        int jump = table.getJump(3, 0);
+        Assert.assertEquals(3, table.getSource(jump));
+        Assert.assertEquals(1, table.getOver(jump));
+        Assert.assertEquals(0, table.getTarget(jump));
+        Assert.assertEquals(-1, table.getJump(3, 1));
+    }
+    
+    @Test
+    public void testSharedTable(){
+        Assert.assertTrue(JumpTable.forLevels(NumberOfLevels.SIX) == JumpTable.forLevels(6));
+    }
+}
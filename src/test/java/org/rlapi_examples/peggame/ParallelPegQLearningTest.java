@@ -0,0 +1,39 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class ParallelPegQLearningTest {
+    
+    @Test
+    public void testTrain_1() throws InterruptedException{
+        //The policy learned by several workers solves every match
+        ParallelPegQLearning agent = new ParallelPegQLearning(NumberOfLevels.FIVE, 
+                new StripedQTable(NumberOfLevels.FIVE, 16));
+        for(int i = 0; i < 4; i++){
+            agent.addWorker(50_000, EpsilonSchedule.linear(0.3, 0.1));
+        }
+        Map<String, String> policy = agent.train(0.8, 0.9);
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        for(int i = 0; i < 100; i++){
+            game.startGame();
+            while(!game.isEndOfGame()){
+                game.movePiece(policy.get(game.getCurrentState()));
+            }
+            Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+        }
+    }
+    
+    @Test
+    public void testLinearSchedule(){
+        EpsilonSchedule schedule = EpsilonSchedule.linear(0.3, 0.1);
+        Assert.assertEquals(0.3, schedule.getEpsilon(0, 11), 1e-9);
+        Assert.assertEquals(0.2, schedule.getEpsilon(5, 11), 1e-9);
+        Assert.assertEquals(0.1, schedule.getEpsilon(10, 11), 1e-9);
+    }
+}
@@ -0,0 +1,62 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PegGameBatchTest {
+    
+    @Test
+    public void testStep_1(){
+        //The batch has the rewards and the states of single games
+        PegGameBatch batch = new PegGameBatch(NumberOfLevels.FIVE, 64, new Random(1));
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        int[] actions = new int[batch.size()];
+        double[] rewards = new double[batch.size()];
+        boolean[] terminal = new boolean[batch.size()];
+        long[] nextStates = new long[batch.size()];
+        for(int step = 0; step < 100; step++){
+            long[] states = new long[batch.size()];
+            batch.getStates(states);
+            batch.chooseRandomActions(actions);
+            batch.step(actions, rewards, terminal, nextStates);
+            for(int i = 0; i < batch.size(); i++){
+                game.setBoardState(states[i]);
+                Assert.assertEquals(game.performAction(actions[i]), rewards[i], 0);
+                Assert.assertEquals(game.getStateId(), nextStates[i]);
+                Assert.assertEquals(game.isEndOfGame(), terminal[i]);
+                //a finished board is replaced by a new one
+                if(terminal[i])
+                    Assert.assertEquals(14, Long.bitCount(batch.getState(i)));
+                else
+                    Assert.assertEquals(nextStates[i], batch.getState(i));
+            }
+        }
+    }
+    
+    @Test
+    public void testStep_2(){
+        //An invalid action leaves the board unchanged
+        PegGameBatch batch = new PegGameBatch(NumberOfLevels.FIVE, 2, new Random(1));
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        game.setBoardState("011111111111111");
+        batch.setState(0, game.getStateId());
+        batch.setState(1, game.getStateId());
+        int[] actions = {game.getJumpTable().getJump(0, 3), game.getJumpTable().getJump(3, 0)};
+        double[] rewards = new double[2];
+        boolean[] terminal = new boolean[2];
+        long[] nextStates = new long[2];
+        batch.step(actions, rewards, terminal, nextStates);
+        Assert.assertTrue(Double.isNaN(rewards[0]));
+        Assert.assertFalse(terminal[0]);
+        Assert.assertEquals(game.getStateId(), nextStates[0]);
+        Assert.assertEquals(game.getStateId(), batch.getState(0));
+        Assert.assertEquals(1.0, rewards[1], 0);
+        game.movePiece(actions[1]);
+        Assert.assertEquals(game.getStateId(), nextStates[1]);
+    }
+}
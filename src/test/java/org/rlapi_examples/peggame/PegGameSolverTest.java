@@ -0,0 +1,52 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PegGameSolverTest {
+    
+    @Test
+    public void testSolve_1(){
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.FIVE);
+        //the last move of a solvable game
+        Assert.assertTrue(solver.isSolvable(PegGame.parseBinaryRepresentation("010100000000000")));
+        //two pieces far away from each other
+        Assert.assertEquals(2, solver.solve(PegGame.parseBinaryRepresentation("100000000000001")));
+        Assert.assertEquals(-1, solver.getBestMove(PegGame.parseBinaryRepresentation("100000000000001")));
+    }
+    
+    @Test
+    public void testGetPolicy_1(){
+        //Following the solver's policy solves every starting board of a 
+        //solvable five levels game
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.FIVE);
+        solver.solveStartingBoards(1);
+        Map<String, String> policy = solver.getPolicy();
+        PegGame game = new PegGame(NumberOfLevels.FIVE);
+        for(int place = 0; place < 15; place++){
+            game.setBoardState(((1L << 15) - 1) & ~(1L << place));
+            Assert.assertTrue(solver.isSolvable(game.getStateId()));
+            while(!game.isEndOfGame()){
+                game.movePiece(policy.get(game.getCurrentState()));
+            }
+            Assert.assertEquals(1, game.getNumberOfOccupiedPlaces());
+        }
+        Assert.assertEquals(1.0, solver.scorePolicy(PegPolicy.fromMap(policy, NumberOfLevels.FIVE)), 0.0);
+        Assert.assertTrue(solver.scorePolicy(state -> -1) == 0.0);
+    }
+    
+    @Test
+    public void testSolve_2(){
+        //Boards greater than the dense table are stored in a hash
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.of(7));
+        long board = PegGame.parseBinaryRepresentation("0101000000000000000000000000");
+        Assert.assertTrue(solver.isSolvable(board));
+        //the first of the two winning moves on the jump table
+        Assert.assertEquals(JumpTable.forLevels(7).getJump(1, 6), solver.getBestMove(board));
+    }
+}
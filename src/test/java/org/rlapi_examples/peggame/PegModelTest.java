@@ -0,0 +1,39 @@
+package org.rlapi_examples.peggame;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PegModelTest {
+    
+    @Test
+    public void testAdd_1(){
+        //The model keeps one transition per pair
+        PegModel model = new PegModel(NumberOfLevels.FIVE);
+        Assert.assertTrue(model.add(0b1011L, 3, 1.0, 0b0111L, false));
+        Assert.assertFalse(model.add(0b1011L, 3, -100.0, 0b0111L, true));
+        Assert.assertTrue(model.add(0b1011L, 4, 1.0, 0b1101L, false));
+        Assert.assertEquals(2, model.size());
+        int index = model.indexOf(0b1011L, 3);
+        Assert.assertEquals(-100.0, model.getReward(index), 0);
+        Assert.assertTrue(model.isTerminal(index));
+        Assert.assertEquals(-1, model.indexOf(0b0111L, 3));
+    }
+    
+    @Test
+    public void testPredecessors_1(){
+        //The model links the transitions which lead to the same state
+        PegModel model = new PegModel(NumberOfLevels.FIVE);
+        model.add(0b0111L, 1, 1.0, 0b1000L, false);
+        model.add(0b1011L, 2, 1.0, 0b1000L, false);
+        model.add(0b1011L, 3, 1.0, 0b0100L, false);
+        int first = model.getFirstPredecessor(0b1000L);
+        Assert.assertEquals(model.indexOf(0b1011L, 2), first);
+        Assert.assertEquals(model.indexOf(0b0111L, 1), model.getNextPredecessor(first));
+        Assert.assertEquals(-1, model.getNextPredecessor(model.getNextPredecessor(first)));
+        Assert.assertEquals(-1, model.getFirstPredecessor(0b1011L));
+    }
+}
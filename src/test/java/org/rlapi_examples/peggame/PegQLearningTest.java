@@ -0,0 +1,79 @@
+package org.rlapi_examples.peggame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PegQLearningTest {
+    
+    private static PegQLearning train(){
+        PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(3)), 
+                new HashQTable(NumberOfLevels.FIVE), new Random(5));
+        agent.setCanonicalStates(true);
+        agent.runEpisodes(20_000, 0.8, 0.9, 0.2);
+        return agent;
+    }
+    
+    @Test
+    public void testWritePolicy_1() throws IOException{
+        //The streamed policy has the same lines of the built one
+        PegQLearning agent = train();
+        Map<String, String> expected = agent.getPolicy();
+        StringWriter writer = new StringWriter();
+        agent.writePolicy(writer);
+        Map<String, String> actual = new HashMap<>();
+        String[] lines = writer.toString().split("\n");
+        for(String line : lines){
+            int spaceIndex = line.indexOf(" ");
+            actual.put(line.substring(0, spaceIndex), line.substring(spaceIndex + 1));
+        }
+        Assert.assertEquals(expected.size(), lines.length);
+        Assert.assertEquals(expected, actual);
+    }
+    
+    @Test
+    public void testGetGreedyPolicy_1(){
+        //The view over the table has the moves of the built policy
+        PegQLearning agent = train();
+        Map<String, String> policy = agent.getPolicy();
+        PegPolicy expected = PegPolicy.fromMap(policy, NumberOfLevels.FIVE);
+        PegPolicy actual = agent.getGreedyPolicy();
+        for(String state : policy.keySet()){
+            long id = PegGame.parseBinaryRepresentation(state);
+            Assert.assertEquals(expected.getMove(id), actual.getMove(id));
+        }
+        //an empty table has no move
+        PegQLearning untrained = new PegQLearning(new PegGame(NumberOfLevels.FIVE), 
+                new HashQTable(NumberOfLevels.FIVE));
+        Assert.assertEquals(-1, untrained.getGreedyPolicy().getMove(
+                PegGame.parseBinaryRepresentation("011111111111111")));
+    }
+    
+    @Test
+    public void testWriteBinaryPolicy_1() throws IOException{
+        //The binary policy written from the table has the moves of the built 
+        //policy, although it stores only the canonical states
+        PegQLearning agent = train();
+        Map<String, String> policy = agent.getPolicy();
+        Path file = Files.createTempFile("policy", ".bin");
+        file.toFile().deleteOnExit();
+        BinaryPolicy.write(file, agent);
+        BinaryPolicy loaded = BinaryPolicy.load(file);
+        Assert.assertTrue(loaded.size() < policy.size());
+        PegPolicy expected = PegPolicy.fromMap(policy, NumberOfLevels.FIVE);
+        for(String state : policy.keySet()){
+            long id = PegGame.parseBinaryRepresentation(state);
+            Assert.assertEquals(expected.getMove(id), loaded.getMove(id));
+        }
+    }
+}
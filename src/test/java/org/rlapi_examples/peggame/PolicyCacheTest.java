@@ -0,0 +1,86 @@
+package org.rlapi_examples.peggame;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PolicyCacheTest {
+    
+    @Test
+    public void testGet_1() throws IOException{
+        //A policy file is decoded once and shared by the requests
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.FIVE);
+        solver.solveStartingBoards(1);
+        Map<String, String> policy = solver.getPolicy();
+        Path file = Files.createTempFile("policy", ".txt");
+        file.toFile().deleteOnExit();
+        Util.writePolicy(file.toString(), policy, "Solver");
+        
+        PegPolicy cached = PolicyCache.get(NumberOfLevels.FIVE, file.toString());
+        Assert.assertTrue(cached == PolicyCache.get(NumberOfLevels.FIVE, file.toString()));
+        Assert.assertTrue(PolicyCache.getAsync(NumberOfLevels.FIVE, file.toString()).isDone());
+        PegPolicy expected = PegPolicy.fromMap(policy, NumberOfLevels.FIVE);
+        for(String state : policy.keySet()){
+            long id = PegGame.parseBinaryRepresentation(state);
+            Assert.assertEquals(expected.getMove(id), cached.getMove(id));
+        }
+        
+        PolicyCache.clear();
+        Assert.assertFalse(cached == PolicyCache.get(NumberOfLevels.FIVE, file.toString()));
+    }
+    
+    @Test(expected = FileNotFoundException.class)
+    public void testGet_2() throws IOException{
+        //A missing policy is reported
+        PolicyCache.get(NumberOfLevels.FIVE, "peggame/no-policy.txt");
+    }
+    
+    @Test(expected = IOException.class)
+    public void testGet_3() throws IOException{
+        //A move which is not a jump of the board is rejected
+        Path file = Files.createTempFile("policy", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, "011111111111111 1 2\n".getBytes("US-ASCII"));
+        PolicyCache.get(NumberOfLevels.FIVE, file.toString());
+    }
+    
+    @Test
+    public void testGet_4() throws IOException{
+        //The binary version of a text policy is preferred
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.FIVE);
+        solver.solveStartingBoards(1);
+        Map<String, String> policy = solver.getPolicy();
+        Path file = Files.createTempFile("policy", ".txt");
+        file.toFile().deleteOnExit();
+        Util.writePolicy(file.toString(), policy, "Solver");
+        String name = file.getFileName().toString();
+        Path binaryFile = file.resolveSibling(name.substring(0, name.length() - 4) + ".bin");
+        binaryFile.toFile().deleteOnExit();
+        BinaryPolicy.write(binaryFile, policy, NumberOfLevels.FIVE);
+        
+        PegPolicy cached = PolicyCache.get(NumberOfLevels.FIVE, file.toString());
+        Assert.assertTrue(cached instanceof BinaryPolicy);
+        PegPolicy expected = PegPolicy.fromMap(policy, NumberOfLevels.FIVE);
+        for(String state : policy.keySet()){
+            long id = PegGame.parseBinaryRepresentation(state);
+            Assert.assertEquals(expected.getMove(id), cached.getMove(id));
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testGet_5() throws IOException{
+        //A state which is not a board of the number of levels is rejected
+        Path file = Files.createTempFile("policy", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, "101100011001011000000 1 6\n".getBytes("US-ASCII"));
+        PolicyCache.get(NumberOfLevels.FIVE, file.toString());
+    }
+}
@@ -0,0 +1,56 @@
+package org.rlapi_examples.peggame;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PolicyEvaluatorTest {
+    
+    @Test
+    public void testEvaluate_1(){
+        //A policy without moves leaves every match with all but one piece
+        PolicyEvaluator evaluator = new PolicyEvaluator(NumberOfLevels.FIVE);
+        PolicyEvaluator.Result result = evaluator.evaluate(state -> -1, 2500, 7);
+        Assert.assertEquals(2500, result.getNumberOfMatches());
+        Assert.assertEquals(0.0, result.getSuccessRate(), 0.0);
+        Assert.assertEquals(14.0, result.getMeanRemainingPieces(), 0.0);
+        int matches = 0;
+        for(int place = 0; place < 15; place++){
+            matches += result.getNumberOfMatches(place);
+        }
+        Assert.assertEquals(2500, matches);
+    }
+    
+    @Test
+    public void testEvaluate_2(){
+        //Same seed, same results
+        PegPolicy firstMove = state -> {
+            int[] moves = new int[36];
+            return JumpTable.forLevels(NumberOfLevels.FIVE).getValidJumps(state, moves) > 0 ? moves[0] : -1;
+        };
+        PolicyEvaluator evaluator = new PolicyEvaluator(NumberOfLevels.FIVE);
+        PolicyEvaluator.Result a = evaluator.evaluate(firstMove, 5000, 42);
+        PolicyEvaluator.Result b = evaluator.evaluate(firstMove, 5000, 42);
+        Assert.assertEquals(a.getSolvedMatches(), b.getSolvedMatches());
+        Assert.assertEquals(a.getMeanRemainingPieces(), b.getMeanRemainingPieces(), 0.0);
+        for(int place = 0; place < 15; place++){
+            Assert.assertEquals(a.getNumberOfMatches(place), b.getNumberOfMatches(place));
+        }
+    }
+    
+    @Test
+    public void testGetChunkSeed_1(){
+        //The chunks of neighbouring evaluation seeds have distinct generators
+        Set<Long> seeds = new HashSet<>();
+        for(long seed = 0; seed < 100; seed++){
+            for(int chunk = 0; chunk < 100; chunk++){
+                Assert.assertTrue(seeds.add(PolicyEvaluator.getChunkSeed(seed, chunk)));
+            }
+        }
+    }
+}
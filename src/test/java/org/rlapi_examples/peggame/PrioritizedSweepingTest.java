@@ -0,0 +1,32 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class PrioritizedSweepingTest {
+    
+    @Test
+    public void testSweep_1(){
+        //The sweeping learns a policy which solves the board with fewer real episodes
+        PolicyEvaluator evaluator = new PolicyEvaluator(NumberOfLevels.FIVE);
+        evaluator.setInitialNumberOfEmptyPlaces(1);
+        double[] successRates = new double[2];
+        for(int i = 0; i < 2; i++){
+            PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), 
+                    new HashQTable(NumberOfLevels.FIVE), new Random(2));
+            agent.setCanonicalStates(true);
+            if(i == 0)
+                agent.runEpisodes(2000, 0.8, 0.9, 0.2);
+            else
+                new PrioritizedSweeping(agent, 0.9, 100, 1e-3).runEpisodes(2000, 0.8, 0.2);
+            successRates[i] = evaluator.evaluate(agent.getGreedyPolicy(), 1000, 7).getSuccessRate();
+        }
+        Assert.assertTrue(successRates[1] > successRates[0]);
+        Assert.assertEquals(1.0, successRates[1], 0);
+    }
+}
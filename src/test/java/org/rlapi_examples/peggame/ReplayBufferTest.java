@@ -0,0 +1,63 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class ReplayBufferTest {
+    
+    @Test
+    public void testAdd_1(){
+        //A full buffer replaces its oldest transitions
+        ReplayBuffer buffer = new ReplayBuffer(3);
+        for(int i = 0; i < 5; i++){
+            buffer.add(i, i + 10, i * 1.5, i + 100, i % 2 == 0);
+        }
+        Assert.assertEquals(3, buffer.size());
+        for(int index = 0; index < 3; index++){
+            int i = index + 2;
+            Assert.assertEquals(i, buffer.getState(index));
+            Assert.assertEquals(i + 10, buffer.getJump(index));
+            Assert.assertEquals(i * 1.5, buffer.getReward(index), 0);
+            Assert.assertEquals(i + 100, buffer.getNextState(index));
+            Assert.assertEquals(i % 2 == 0, buffer.isTerminal(index));
+        }
+    }
+    
+    @Test
+    public void testSample_1(){
+        ReplayBuffer buffer = new ReplayBuffer(100);
+        int[] indexes = new int[50];
+        Assert.assertEquals(0, buffer.sample(new Random(1), indexes, 50));
+        for(int i = 0; i < 10; i++){
+            buffer.add(i, 0, 0, 0, false);
+        }
+        Assert.assertEquals(50, buffer.sample(new Random(1), indexes, 50));
+        for(int index : indexes){
+            Assert.assertTrue(index >= 0 && index < 10);
+        }
+    }
+    
+    @Test
+    public void testReplay_1(){
+        //The replay learns a policy which solves the board with fewer episodes
+        PolicyEvaluator evaluator = new PolicyEvaluator(NumberOfLevels.FIVE);
+        evaluator.setInitialNumberOfEmptyPlaces(1);
+        double[] successRates = new double[2];
+        for(int i = 0; i < 2; i++){
+            PegQLearning agent = new PegQLearning(new PegGame(NumberOfLevels.FIVE, new Random(1)), 
+                    new HashQTable(NumberOfLevels.FIVE), new Random(2));
+            agent.setCanonicalStates(true);
+            if(i == 1)
+                agent.setReplay(new ReplayBuffer(50_000), 8);
+            agent.runEpisodes(1000, 0.8, 0.9, 0.2);
+            successRates[i] = evaluator.evaluate(agent.getGreedyPolicy(), 1000, 7).getSuccessRate();
+        }
+        Assert.assertTrue(successRates[1] > successRates[0]);
+        Assert.assertEquals(1.0, successRates[1], 0);
+    }
+}
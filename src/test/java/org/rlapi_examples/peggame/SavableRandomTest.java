@@ -0,0 +1,45 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class SavableRandomTest {
+    
+    @Test
+    public void testNext_1(){
+        //The generator draws the same numbers of java.util.Random
+        Random expected = new Random(42);
+        SavableRandom actual = new SavableRandom(42);
+        for(int i = 0; i < 1000; i++){
+            Assert.assertEquals(expected.nextInt(), actual.nextInt());
+            Assert.assertEquals(expected.nextInt(17), actual.nextInt(17));
+            Assert.assertEquals(expected.nextLong(), actual.nextLong());
+            Assert.assertEquals(expected.nextDouble(), actual.nextDouble(), 0);
+        }
+        expected.setSeed(7);
+        actual.setSeed(7);
+        Assert.assertEquals(expected.nextLong(), actual.nextLong());
+    }
+    
+    @Test
+    public void testWithState_1(){
+        //A generator restored from a state goes on with the same numbers
+        SavableRandom rand = new SavableRandom(5);
+        rand.nextDouble();
+        SavableRandom copy = SavableRandom.withState(rand.getState());
+        for(int i = 0; i < 100; i++){
+            Assert.assertEquals(rand.nextInt(), copy.nextInt());
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWithState_2(){
+        //A state has 48 bits
+        SavableRandom.withState(1L << 48);
+    }
+}
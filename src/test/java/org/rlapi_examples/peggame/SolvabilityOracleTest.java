@@ -0,0 +1,88 @@
+package org.rlapi_examples.peggame;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class SolvabilityOracleTest {
+    
+    @Test
+    public void testGetSolvability_1(){
+        //The oracle agrees with the exact solver
+        SolvabilityOracle oracle = new SolvabilityOracle(NumberOfLevels.SIX, Integer.MAX_VALUE);
+        PegGameSolver solver = new PegGameSolver(NumberOfLevels.SIX);
+        Random rand = new Random(11);
+        for(int i = 0; i < 2000; i++){
+            long board = rand.nextLong() & rand.nextLong() & ((1L << 21) - 1);
+            if(board == 0)
+                continue;
+            int expected = solver.isSolvable(board) ? SolvabilityOracle.SOLVABLE 
+                    : SolvabilityOracle.UNSOLVABLE;
+            Assert.assertEquals(expected, oracle.getSolvability(board));
+        }
+    }
+    
+    @Test
+    public void testGetSolvability_2(){
+        //A search beyond the node limit gives up
+        SolvabilityOracle oracle = new SolvabilityOracle(NumberOfLevels.of(7), 1);
+        long board = ((1L << 28) - 1) & ~1L;
+        Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(board));
+        Assert.assertFalse(oracle.isHopeless(board));
+        //two pieces far away from each other
+        Assert.assertTrue(oracle.isHopeless(1L | (1L << 27)));
+    }
+    
+    @Test
+    public void testGetSolvability_3(){
+        //A query which gave up is not searched again, even from a symmetric image
+        NumberOfLevels levels = NumberOfLevels.of(7);
+        SolvabilityOracle oracle = new SolvabilityOracle(levels, 1);
+        long board = ((1L << 28) - 1) & ~1L;
+        Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(board));
+        Assert.assertTrue(oracle.getNumberOfNodes() > 0);
+        BoardSymmetry symmetry = BoardSymmetry.forLevels(levels);
+        for(int s = 0; s < BoardSymmetry.NUMBER_OF_SYMMETRIES; s++){
+            Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(symmetry.apply(s, board)));
+            Assert.assertEquals(0, oracle.getNumberOfNodes());
+        }
+    }
+    
+    @Test
+    public void testGetSolvability_4(){
+        //A proven position is known for all its symmetric images
+        NumberOfLevels levels = NumberOfLevels.SIX;
+        SolvabilityOracle oracle = new SolvabilityOracle(levels, Integer.MAX_VALUE);
+        BoardSymmetry symmetry = BoardSymmetry.forLevels(levels);
+        Random rand = new Random(5);
+        for(int i = 0; i < 50; i++){
+            long board = rand.nextLong() & ((1L << 21) - 1);
+            if(board == 0)
+                continue;
+            int answer = oracle.getSolvability(board);
+            Assert.assertTrue(answer != SolvabilityOracle.UNKNOWN);
+            for(int s = 0; s < BoardSymmetry.NUMBER_OF_SYMMETRIES; s++){
+                Assert.assertEquals(answer, oracle.getSolvability(symmetry.apply(s, board)));
+                Assert.assertEquals(0, oracle.getNumberOfNodes());
+            }
+        }
+    }
+    
+    @Test
+    public void testGetSolvability_5(){
+        //A query which gave up is searched again once the table has grown
+        SolvabilityOracle oracle = new SolvabilityOracle(NumberOfLevels.of(7), 1);
+        long board = ((1L << 28) - 1) & ~1L;
+        Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(board));
+        Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(board));
+        Assert.assertEquals(0, oracle.getNumberOfNodes());
+        //a proven position
+        Assert.assertTrue(oracle.isHopeless(1L | (1L << 27)));
+        Assert.assertEquals(SolvabilityOracle.UNKNOWN, oracle.getSolvability(board));
+        Assert.assertTrue(oracle.getNumberOfNodes() > 0);
+    }
+}
@@ -0,0 +1,63 @@
+package org.rlapi_examples.peggame;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class TableSnapshotTest {
+    
+    private static Map<Long, Double> getValues(TableSnapshot snapshot){
+        Map<Long, Double> values = new HashMap<>();
+        for(TableSnapshot.Rows chunk : snapshot.getChunks()){
+            for(int i = 0; i < chunk.size; i++){
+                values.put(chunk.states[i], chunk.values[i * chunk.jumps]);
+            }
+        }
+        return values;
+    }
+    
+    @Test
+    public void testStartSnapshot_1(){
+        //A snapshot of a hash table keeps the values of its start
+        HashQTable table = new HashQTable(NumberOfLevels.FIVE);
+        for(long state = 1; state <= 5000; state++){
+            table.setValue(state, 0, state);
+        }
+        TableSnapshot snapshot = table.startSnapshot();
+        Assert.assertFalse(snapshot.isComplete());
+        for(long state = 5000; state >= 1; state--){
+            table.setValue(state, 0, -state);
+        }
+        table.setValue(5001, 0, 1);
+        Assert.assertTrue(snapshot.isComplete());
+        Map<Long, Double> values = getValues(snapshot);
+        Assert.assertEquals(5000, values.size());
+        for(long state = 1; state <= 5000; state++){
+            Assert.assertEquals(state, values.get(state), 0);
+        }
+    }
+    
+    @Test
+    public void testStartSnapshot_2(){
+        //A snapshot of a dense table keeps the stored states of its start
+        DenseQTable table = new DenseQTable(NumberOfLevels.FIVE);
+        for(long state = 1; state < 3000; state += 2){
+            table.setValue(state, 0, state);
+        }
+        TableSnapshot snapshot = table.startSnapshot();
+        for(long state = 0; state < 3000; state++){
+            table.setValue(state, 0, -1);
+        }
+        snapshot.complete();
+        Map<Long, Double> values = getValues(snapshot);
+        Assert.assertEquals(1500, values.size());
+        for(long state = 1; state < 3000; state += 2){
+            Assert.assertEquals(state, values.get(state), 0);
+        }
+    }
+}
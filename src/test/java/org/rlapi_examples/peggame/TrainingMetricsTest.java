@@ -0,0 +1,80 @@
+package org.rlapi_examples.peggame;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * @author Alexandre Lima
+ */
+public class TrainingMetricsTest {
+    
+    @Test
+    public void testEpisodeFinished_1(){
+        //The metrics count the episodes and the moves of the agent
+        PegGame game = new PegGame(NumberOfLevels.FIVE, new Random(1));
+        PegQLearning agent = new PegQLearning(game, new HashQTable(NumberOfLevels.FIVE), new Random(2));
+        TrainingMetrics metrics = new TrainingMetrics(agent.getTable());
+        agent.setMetrics(metrics);
+        agent.runEpisodes(1000, 0.8, 0.9, 0.2);
+        metrics.sample();
+        Assert.assertEquals(1000, metrics.getEpisodes());
+        Assert.assertTrue(metrics.getSteps() >= 1000);
+        Assert.assertTrue(metrics.getEpisodesPerSecond() > 0);
+        Assert.assertEquals(agent.getTable().getNumberOfStates(), metrics.getTableSize());
+        Assert.assertTrue(metrics.getSuccessRate() >= 0 && metrics.getSuccessRate() <= 1);
+        Assert.assertTrue(metrics.getMoveGenerationSeconds() > 0);
+        Assert.assertTrue(metrics.getTableUpdateSeconds() > 0);
+        Assert.assertEquals(0, metrics.getOracleSeconds(), 0);
+    }
+    
+    @Test
+    public void testRegister_1() throws JMException{
+        //The metrics are readable through JMX until they are closed
+        TrainingMetrics metrics = new TrainingMetrics(new HashQTable(NumberOfLevels.FIVE));
+        metrics.episodeFinished(10, true);
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(1L, server.getAttribute(metrics.getObjectName(), "Episodes"));
+        Assert.assertEquals(10L, server.getAttribute(metrics.getObjectName(), "Steps"));
+        ObjectName name = metrics.getObjectName();
+        metrics.close();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+    
+    @Test
+    public void testGetAllocatedBytes_1() throws InterruptedException{
+        //The allocation of a thread which exits is still counted
+        TrainingMetrics metrics = new TrainingMetrics(new HashQTable(NumberOfLevels.FIVE));
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch measured = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            byte[][] blocks = new byte[64][];
+            for(int i = 0; i < blocks.length; i++){
+                blocks[i] = new byte[64 * 1024];
+            }
+            allocated.countDown();
+            try{
+                measured.await();
+            }
+            catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        allocated.await();
+        long whileAlive = metrics.getAllocatedBytes();
+        measured.countDown();
+        worker.join();
+        if(whileAlive == -1)
+            return; //the JVM does not measure the allocation
+        Assert.assertTrue(whileAlive >= 64 * 64 * 1024);
+        Assert.assertTrue(metrics.getAllocatedBytes() >= whileAlive);
+    }
+}